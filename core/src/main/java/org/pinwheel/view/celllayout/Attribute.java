@@ -21,5 +21,9 @@ import java.lang.annotation.Target;
 @interface Attribute {
     String value() default "";
 
+    /**
+     * the value is design unit of template, it will be scaled at measure time by {@link Cell#scaled(int)}.
+     * the library scales its own fields only, custom cell must scale the fields it declares.
+     */
     boolean fixedResolution() default false;
 }
@@ -11,7 +11,7 @@ import java.io.Serializable;
  * @author dnwang
  * @version 2018/11/15,13:35
  */
-public class Cell extends Rect implements Serializable {
+public class Cell extends Rect implements Serializable, Cloneable {
 
     private static final int FLAG_HAS_MEASURED = 1;
     private static final int FLAG_HAS_LAYOUT = FLAG_HAS_MEASURED << 1;
@@ -22,21 +22,69 @@ public class Cell extends Rect implements Serializable {
     private static final int FLAG_NO_HOLDER = FLAG_HAS_FOCUS << 1;
 
     private static int ID_OFFSET = 0;
-    private final int id;
+    private int id;
     private int state = 0;
     //
     @Attribute(fixedResolution = true)
-    public int paddingLeft, paddingTop, paddingRight, paddingBottom;
+    int paddingLeft, paddingTop, paddingRight, paddingBottom; // design unit, changed by setPadding() only, see getPaddingLeft()
     @Attribute
     private boolean focusable = true; // just change value from template json file
+    @Attribute
+    private String key; // stable identity between templates
     //
     private int measureWidth, measureHeight;
+    private float scale = 1f;
     //
     private CellGroup parent;
+    private int indexInParent = -1;
     private CellGroup.Params p;
+    transient CellIndex index; // not null when the cell is in content of CellLayout
+    transient int flatIndex = -1; // index in FlatGeometry
+    transient long structureHash = MeasureCache.NONE; // cleared when measure is requested
+    transient int targetResolution = 0; // design resolution, only the root of template has it
 
     public Cell() {
-        this.id = ++ID_OFFSET;
+        this(reserveIds(1));
+    }
+
+    Cell(int id) {
+        this.id = id;
+    }
+
+    /**
+     * reserve a continuous id range, return the first id of range.
+     * ids are never reused, the recycled cell gets a new id, so the view which is kept for the old cell
+     * by {@link ViewPool} and the row of {@link CellData} are never matched by it.
+     */
+    static synchronized int reserveIds(int count) {
+        count = Math.max(0, count);
+        if (count > Integer.MAX_VALUE - ID_OFFSET) {
+            throw new IllegalStateException("no more cell id !");
+        }
+        final int first = ID_OFFSET + 1;
+        ID_OFFSET += count;
+        return first;
+    }
+
+    /**
+     * copy attributes and params, the copy has no parent and state
+     */
+    Cell copy(int id) {
+        final Cell cell;
+        try {
+            cell = (Cell) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        cell.id = id;
+        cell.state = 0;
+        cell.parent = null;
+        cell.indexInParent = -1;
+        cell.index = null;
+        cell.flatIndex = -1;
+        cell.structureHash = MeasureCache.NONE;
+        cell.p = null != p ? (p.shared ? p : p.copy()) : null;
+        return cell;
     }
 
     protected void measure(int width, int height) {
@@ -45,6 +93,15 @@ public class Cell extends Rect implements Serializable {
         this.measureHeight = height;
     }
 
+    /**
+     * the size is restored from {@link MeasureCache}
+     */
+    final void setMeasured(int width, int height) {
+        state |= FLAG_HAS_MEASURED;
+        this.measureWidth = width;
+        this.measureHeight = height;
+    }
+
     protected void layout(int x, int y, int scrollX, int scrollY) {
         state |= FLAG_HAS_LAYOUT;
         layoutX = x;
@@ -55,6 +112,22 @@ public class Cell extends Rect implements Serializable {
         parentScrollY = scrollY;
     }
 
+    final void setScale(float scale) {
+        this.scale = scale;
+    }
+
+    final float getScale() {
+        return scale;
+    }
+
+    /**
+     * convert design value to pixel, eg: padding, margin, divider and size of params.
+     * the {@link Attribute#fixedResolution()} fields of custom cell must be converted by it too.
+     */
+    public final int scaled(int value) {
+        return 1f == scale ? value : (int) (value * scale);
+    }
+
     final int getLayoutX() {
         return layoutX;
     }
@@ -63,6 +136,15 @@ public class Cell extends Rect implements Serializable {
         return layoutY;
     }
 
+    /**
+     * move the layout position and the rect together, the cell will not be layout again
+     */
+    final void offsetLayout(int dx, int dy) {
+        layoutX += dx;
+        layoutY += dy;
+        offset(dx, dy);
+    }
+
     @Override
     public int width() {
         return measureWidth;
@@ -78,28 +160,101 @@ public class Cell extends Rect implements Serializable {
         this.paddingTop = paddingTop;
         this.paddingRight = paddingRight;
         this.paddingBottom = paddingBottom;
+        clearStructureHash(this);
     }
 
+    /**
+     * the params are a part of parent's structure
+     */
     final void setParams(CellGroup.Params p) {
         this.p = p;
+        clearStructureHash(this);
     }
 
     final void setParent(CellGroup parent) {
         this.parent = parent;
     }
 
+    final void setIndexInParent(int index) {
+        this.indexInParent = index;
+    }
+
+    /**
+     * it's kept by parent when the children are changed, -1 if the cell has no parent
+     */
+    final int getIndexInParent() {
+        return indexInParent;
+    }
+
+    /**
+     * whether the cell is in the tree of special root
+     */
+    final boolean isAttachedTo(Cell root) {
+        Cell cell = this;
+        while (null != cell && cell != root) {
+            cell = cell.getParent();
+        }
+        return null != cell;
+    }
+
+    public final String getKey() {
+        return key;
+    }
+
     public final int getId() {
         return id;
     }
 
+    /**
+     * padding in pixel, the fields are design unit of template
+     */
+    public final int getPaddingLeft() {
+        return scaled(paddingLeft);
+    }
+
+    public final int getPaddingTop() {
+        return scaled(paddingTop);
+    }
+
+    public final int getPaddingRight() {
+        return scaled(paddingRight);
+    }
+
+    public final int getPaddingBottom() {
+        return scaled(paddingBottom);
+    }
+
     public Cell findCellById(int id) {
         return getId() == id ? this : null;
     }
 
+    /**
+     * params of template may be shared by the cells which have the same layout, it's read only
+     */
+    final CellGroup.Params params() {
+        return p;
+    }
+
+    /**
+     * params of template may be shared with other cells, don't change it, use {@link #editParams()} instead
+     */
     public final CellGroup.Params getParams() {
         return p;
     }
 
+    /**
+     * the params which can be changed by caller, it's copied if it's shared with other cells,
+     * and the measured sizes of parent are dropped from cache. request measure and layout after changing.
+     */
+    public final CellGroup.Params editParams() {
+        if (null != p && p.shared) {
+            p = p.copy();
+        }
+        // params of child are a part of parent's structure
+        clearStructureHash(this);
+        return p;
+    }
+
     public final CellGroup getParent() {
         return parent;
     }
@@ -143,20 +298,62 @@ public class Cell extends Rect implements Serializable {
     }
 
     private void _requestMeasureAndLayout(Cell cell) {
-        state &= ~FLAG_HAS_LAYOUT;
-        state &= ~FLAG_HAS_MEASURED;
+        cell.state &= ~FLAG_HAS_LAYOUT;
+        cell.state &= ~FLAG_HAS_MEASURED;
+        cell.structureHash = MeasureCache.NONE;
         final CellGroup p = cell.getParent();
         if (null != p) {
             _requestMeasureAndLayout(p);
         }
     }
 
+    static void clearStructureHash(Cell cell) {
+        for (; null != cell; cell = cell.getParent()) {
+            cell.structureHash = MeasureCache.NONE;
+        }
+    }
+
+    /**
+     * the attributes may be changed, so the structure is computed again
+     */
+    final void clearMeasureAndLayout() {
+        state &= ~FLAG_HAS_LAYOUT;
+        state &= ~FLAG_HAS_MEASURED;
+        structureHash = MeasureCache.NONE;
+    }
+
     // --------- state
 
     final void clearAllState() {
         state = 0;
     }
 
+    /**
+     * reset to the default of constructor for recycle, the id is kept
+     */
+    void reset() {
+        state = 0;
+        paddingLeft = paddingTop = paddingRight = paddingBottom = 0;
+        focusable = true;
+        key = null;
+        measureWidth = measureHeight = 0;
+        scale = 1f;
+        parent = null;
+        indexInParent = -1;
+        p = null;
+        index = null;
+        flatIndex = -1;
+        structureHash = MeasureCache.NONE;
+        targetResolution = 0;
+        layoutX = layoutY = 0;
+        parentScrollX = parentScrollY = 0;
+        set(0, 0, 0, 0);
+    }
+
+    final void setId(int id) {
+        this.id = id;
+    }
+
     public final void setHasContent(boolean is) {
         if (is) {
             state |= FLAG_HAS_CONTENT;
@@ -239,7 +436,7 @@ public class Cell extends Rect implements Serializable {
 
     @Override
     public final int hashCode() {
-        return Long.valueOf(id).hashCode();
+        return id;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,595 @@
+package org.pinwheel.view.celllayout;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Compact data store of cells, every key owns a primitive column and all strings are shared.
+ * The shared string is counted by rows, it's dropped when no row uses it.
+ * The row which is read from template source will be decoded at the first access.
+ *
+ * @author dnwang
+ * @version 2018/12/21,9:40
+ */
+public final class CellData {
+
+    private static final byte TYPE_NONE = 0;
+    private static final byte TYPE_INT = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+
+    private static final byte ROW_DECODED = 0;
+    private static final byte ROW_PENDING = 1;
+
+    // cellId -> row
+    private final SparseIntArray rows = new SparseIntArray();
+    private int rowCount = 0;
+    private int rowCapacity = 16;
+    // rows of removed cells, they will be reused
+    private int[] freeRows = new int[4];
+    private int freeRowCount = 0;
+    private byte[] rowStates = new byte[rowCapacity];
+    private int[] rowVersions = new int[rowCapacity];
+    private Slice[] rowSlices = new Slice[rowCapacity];
+    // key -> column
+    private final HashMap<String, Integer> keys = new HashMap<>();
+    private String[] keyNames = new String[4];
+    private byte[][] types = new byte[4][];
+    private long[][] values = new long[4][];
+    // shared strings, the slot of string which has no reference will be reused
+    private final HashMap<String, Integer> stringIndex = new HashMap<>();
+    private String[] strings = new String[16];
+    private int[] stringRefs = new int[16];
+    private int stringCount = 0;
+    private int[] freeStrings = new int[4];
+    private int freeStringCount = 0;
+    // keep the slice after decoding, so the row can be released to it again
+    private boolean keepSlices = false;
+
+    // versions are unique in all stores, so the version of replaced store is never matched
+    private static final AtomicInteger VERSION = new AtomicInteger(0);
+
+    /**
+     * it's changed when the data of cell is changed, 0 if the cell has no data
+     */
+    public int getVersion(int cellId) {
+        final int row = rows.get(cellId, -1);
+        return row < 0 ? 0 : rowVersions[row];
+    }
+
+    private void touch(int row) {
+        rowVersions[row] = VERSION.incrementAndGet();
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public int keyAt(int index) {
+        return rows.keyAt(index);
+    }
+
+    public boolean contains(int cellId) {
+        return rows.indexOfKey(cellId) >= 0;
+    }
+
+    public boolean has(int cellId, String key) {
+        return TYPE_NONE != typeOf(cellId, key);
+    }
+
+    public String getString(int cellId, String key) {
+        return getString(cellId, key, null);
+    }
+
+    public String getString(int cellId, String key, String def) {
+        final int row = rowOf(cellId);
+        final int column = columnOf(key);
+        if (row < 0 || column < 0 || TYPE_STRING != types[column][row]) {
+            return def;
+        }
+        return strings[(int) values[column][row]];
+    }
+
+    public int getInt(int cellId, String key) {
+        return getInt(cellId, key, 0);
+    }
+
+    public int getInt(int cellId, String key, int def) {
+        final int row = rowOf(cellId);
+        final int column = columnOf(key);
+        if (row < 0 || column < 0 || TYPE_INT != types[column][row]) {
+            return def;
+        }
+        return (int) values[column][row];
+    }
+
+    public double getDouble(int cellId, String key) {
+        return getDouble(cellId, key, 0d);
+    }
+
+    public double getDouble(int cellId, String key, double def) {
+        final int row = rowOf(cellId);
+        final int column = columnOf(key);
+        if (row < 0 || column < 0) {
+            return def;
+        }
+        final byte type = types[column][row];
+        if (TYPE_DOUBLE == type) {
+            return Double.longBitsToDouble(values[column][row]);
+        } else if (TYPE_INT == type) {
+            return (int) values[column][row];
+        } else {
+            return def;
+        }
+    }
+
+    public boolean getBoolean(int cellId, String key) {
+        return getBoolean(cellId, key, false);
+    }
+
+    public boolean getBoolean(int cellId, String key, boolean def) {
+        final int row = rowOf(cellId);
+        final int column = columnOf(key);
+        if (row < 0 || column < 0 || TYPE_BOOLEAN != types[column][row]) {
+            return def;
+        }
+        return 0 != values[column][row];
+    }
+
+    /**
+     * build a new bundle for the cell, just for compatibility
+     */
+    public Bundle getBundle(int cellId) {
+        final int row = rowOf(cellId);
+        if (row < 0) {
+            return null;
+        }
+        final Bundle bundle = new Bundle();
+        final int columnCount = keys.size();
+        for (int column = 0; column < columnCount; column++) {
+            final String key = keyNames[column];
+            final long value = values[column][row];
+            switch (types[column][row]) {
+                case TYPE_INT:
+                    bundle.putInt(key, (int) value);
+                    break;
+                case TYPE_DOUBLE:
+                    bundle.putDouble(key, Double.longBitsToDouble(value));
+                    break;
+                case TYPE_BOOLEAN:
+                    bundle.putBoolean(key, 0 != value);
+                    break;
+                case TYPE_STRING:
+                    bundle.putString(key, strings[(int) value]);
+                    break;
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * keep the template source of decoded rows, it's required by {@link #release(int)}
+     */
+    void setKeepSlices(boolean keep) {
+        this.keepSlices = keep;
+    }
+
+    /**
+     * drop decoded values of the row, it will be decoded again from source at the next access.
+     * the row which is not read from source or has been updated can't be released.
+     */
+    void release(int cellId) {
+        final int row = rows.get(cellId, -1);
+        if (row >= 0 && null != rowSlices[row] && ROW_DECODED == rowStates[row]) {
+            clearRow(row);
+            rowStates[row] = ROW_PENDING;
+        }
+    }
+
+    /**
+     * append all rows of other store, the row which has the same cell id will be replaced
+     */
+    public void merge(CellData other) {
+        if (null == other || other == this) {
+            return;
+        }
+        final int size = other.rows.size();
+        for (int i = 0; i < size; i++) {
+            copyRowAt(other, other.rows.valueAt(i), other.rows.keyAt(i));
+        }
+    }
+
+    /**
+     * replace the row of cell by the row of other cell in special store
+     */
+    void copyRow(CellData from, int fromCellId, int toCellId) {
+        final int fromRow = from.rows.get(fromCellId, -1);
+        if (fromRow < 0) {
+            final int row = rows.get(toCellId, -1);
+            if (row >= 0) {
+                clearRow(row);
+                rowSlices[row] = null;
+                rowStates[row] = ROW_DECODED;
+                touch(row);
+            }
+        } else {
+            copyRowAt(from, fromRow, toCellId);
+        }
+    }
+
+    private void copyRowAt(CellData from, int fromRow, int cellId) {
+        final int row = obtainRow(cellId);
+        clearRow(row);
+        touch(row);
+        rowSlices[row] = from.rowSlices[fromRow];
+        rowStates[row] = from.rowStates[fromRow];
+        if (ROW_PENDING == rowStates[row]) {
+            return; // keep raw slice
+        }
+        final int columnCount = from.keys.size();
+        for (int fromColumn = 0; fromColumn < columnCount; fromColumn++) {
+            final byte type = from.types[fromColumn][fromRow];
+            if (TYPE_NONE == type) {
+                continue;
+            }
+            long value = from.values[fromColumn][fromRow];
+            if (TYPE_STRING == type) {
+                value = internString(from.strings[(int) value]);
+            }
+            final int column = obtainColumn(from.keyNames[fromColumn]);
+            types[column][row] = type;
+            values[column][row] = value;
+        }
+    }
+
+    /**
+     * compare the row of cell with the row of other cell in special store, raw slices are compared without decoding
+     */
+    boolean rowEquals(int cellId, CellData other, int otherCellId) {
+        int row = rows.get(cellId, -1);
+        int otherRow = other.rows.get(otherCellId, -1);
+        if (row < 0 || otherRow < 0) {
+            return row < 0 && otherRow < 0;
+        }
+        final Slice slice = rowSlices[row], otherSlice = other.rowSlices[otherRow];
+        if (null != slice && null != otherSlice && slice.contentEquals(otherSlice)) {
+            return true;
+        }
+        row = rowOf(cellId);
+        otherRow = other.rowOf(otherCellId);
+        return containsRow(row, other, otherRow) && other.containsRow(otherRow, this, row);
+    }
+
+    /**
+     * all values of the row are same in the row of other store
+     */
+    private boolean containsRow(int row, CellData other, int otherRow) {
+        final int columnCount = keys.size();
+        for (int column = 0; column < columnCount; column++) {
+            final byte type = types[column][row];
+            if (TYPE_NONE == type) {
+                continue;
+            }
+            final int otherColumn = other.columnOf(keyNames[column]);
+            if (otherColumn < 0 || type != other.types[otherColumn][otherRow]) {
+                return false;
+            }
+            final long value = values[column][row], otherValue = other.values[otherColumn][otherRow];
+            if (TYPE_STRING == type) {
+                if (!strings[(int) value].equals(other.strings[(int) otherValue])) {
+                    return false;
+                }
+            } else if (value != otherValue) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * override the values of cell, the key with null value will be removed
+     */
+    void update(int cellId, JSONObject json) {
+        final int row = rowOf(cellId); // decode before override
+        if (row >= 0) {
+            rowSlices[row] = null; // different with source now
+        }
+        putJson(cellId, json);
+        final Iterator<String> iterable = json.keys();
+        while (iterable.hasNext()) {
+            final String key = iterable.next();
+            if (json.isNull(key)) {
+                putString(cellId, key, null);
+            }
+        }
+    }
+
+    /**
+     * drop the row of cell, the space will be reused by other cell
+     */
+    void remove(int cellId) {
+        final int row = rows.get(cellId, -1);
+        if (row < 0) {
+            return;
+        }
+        rows.delete(cellId);
+        clearRow(row);
+        rowSlices[row] = null;
+        rowStates[row] = ROW_DECODED;
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeRowCount * 2);
+        }
+        freeRows[freeRowCount++] = row;
+    }
+
+    void putSlice(int cellId, Slice slice) {
+        final int row = obtainRow(cellId);
+        clearRow(row);
+        touch(row);
+        rowSlices[row] = slice;
+        rowStates[row] = ROW_PENDING;
+    }
+
+    void putJson(int cellId, JSONObject json) {
+        if (null == json || 0 == json.length()) {
+            return;
+        }
+        Iterator<String> iterable = json.keys();
+        while (iterable.hasNext()) {
+            String key = iterable.next();
+            Object obj = json.opt(key);
+            if (obj instanceof Integer) {
+                putInt(cellId, key, (int) obj);
+            } else if (obj instanceof Boolean) {
+                putBoolean(cellId, key, (boolean) obj);
+            } else if (obj instanceof String) {
+                putString(cellId, key, (String) obj);
+            } else if (obj instanceof Double) {
+                putDouble(cellId, key, (double) obj);
+            }
+        }
+    }
+
+    void putInt(int cellId, String key, int value) {
+        put(cellId, key, TYPE_INT, value);
+    }
+
+    void putDouble(int cellId, String key, double value) {
+        put(cellId, key, TYPE_DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    void putBoolean(int cellId, String key, boolean value) {
+        put(cellId, key, TYPE_BOOLEAN, value ? 1 : 0);
+    }
+
+    void putString(int cellId, String key, String value) {
+        if (null == value) {
+            put(cellId, key, TYPE_NONE, 0);
+        } else {
+            put(cellId, key, TYPE_STRING, internString(value));
+        }
+    }
+
+    private void put(int cellId, String key, byte type, long value) {
+        final int row = obtainRow(cellId);
+        final int column = obtainColumn(key);
+        touch(row);
+        if (TYPE_STRING == types[column][row]) {
+            releaseString((int) values[column][row]);
+        }
+        types[column][row] = type;
+        values[column][row] = value;
+    }
+
+    private byte typeOf(int cellId, String key) {
+        final int row = rowOf(cellId);
+        final int column = columnOf(key);
+        return (row < 0 || column < 0) ? TYPE_NONE : types[column][row];
+    }
+
+    /**
+     * find row of cell, decode it if it's still a raw slice.
+     * the slice is dropped after decoding unless it's kept for release,
+     * so the template source is released when all rows are decoded.
+     */
+    private int rowOf(int cellId) {
+        final int row = rows.get(cellId, -1);
+        if (row >= 0 && ROW_PENDING == rowStates[row]) {
+            rowStates[row] = ROW_DECODED;
+            final int version = rowVersions[row]; // decoding isn't a change
+            try {
+                putJson(cellId, new JSONObject(rowSlices[row].toString()));
+            } catch (JSONException e) {
+                Log.e(CellLayout.TAG, "[CellData] can't decode data of cell: " + cellId + ", " + e.getMessage());
+            }
+            if (!keepSlices) {
+                rowSlices[row] = null;
+            }
+            rowVersions[row] = version;
+        }
+        return row;
+    }
+
+    private void clearRow(int row) {
+        final int columnCount = keys.size();
+        for (int column = 0; column < columnCount; column++) {
+            if (TYPE_STRING == types[column][row]) {
+                releaseString((int) values[column][row]);
+            }
+            types[column][row] = TYPE_NONE;
+        }
+    }
+
+    private int columnOf(String key) {
+        final Integer column = keys.get(key);
+        return null == column ? -1 : column;
+    }
+
+    private int obtainRow(int cellId) {
+        int row = rows.get(cellId, -1);
+        if (row < 0 && freeRowCount > 0) {
+            row = freeRows[--freeRowCount];
+            rows.put(cellId, row);
+        } else if (row < 0) {
+            if (rowCount == rowCapacity) {
+                rowCapacity = rowCapacity * 2;
+                rowStates = Arrays.copyOf(rowStates, rowCapacity);
+                rowVersions = Arrays.copyOf(rowVersions, rowCapacity);
+                rowSlices = Arrays.copyOf(rowSlices, rowCapacity);
+                final int columnCount = keys.size();
+                for (int i = 0; i < columnCount; i++) {
+                    types[i] = Arrays.copyOf(types[i], rowCapacity);
+                    values[i] = Arrays.copyOf(values[i], rowCapacity);
+                }
+            }
+            row = rowCount++;
+            rows.put(cellId, row);
+        }
+        return row;
+    }
+
+    private int obtainColumn(String key) {
+        Integer column = keys.get(key);
+        if (null == column) {
+            column = keys.size();
+            if (column == keyNames.length) {
+                final int capacity = column * 2;
+                keyNames = Arrays.copyOf(keyNames, capacity);
+                types = Arrays.copyOf(types, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keyNames[column] = key.intern();
+            types[column] = new byte[rowCapacity];
+            values[column] = new long[rowCapacity];
+            keys.put(keyNames[column], column);
+        }
+        return column;
+    }
+
+    /**
+     * every call must be paired with {@link #releaseString(int)} when the value is cleared
+     */
+    private int internString(String value) {
+        Integer index = stringIndex.get(value);
+        if (null == index) {
+            if (freeStringCount > 0) {
+                index = freeStrings[--freeStringCount];
+            } else {
+                if (stringCount == strings.length) {
+                    strings = Arrays.copyOf(strings, stringCount * 2);
+                    stringRefs = Arrays.copyOf(stringRefs, stringCount * 2);
+                }
+                index = stringCount++;
+            }
+            strings[index] = value;
+            stringIndex.put(value, index);
+        }
+        stringRefs[index]++;
+        return index;
+    }
+
+    private void releaseString(int index) {
+        if (--stringRefs[index] > 0) {
+            return;
+        }
+        stringIndex.remove(strings[index]);
+        strings[index] = null;
+        if (freeStringCount == freeStrings.length) {
+            freeStrings = Arrays.copyOf(freeStrings, freeStringCount * 2);
+        }
+        freeStrings[freeStringCount++] = index;
+    }
+
+    /**
+     * undecoded json object of cell data in template source
+     */
+    static final class Slice {
+        private final TemplateReader.Source source;
+        private final int start, end;
+
+        Slice(TemplateReader.Source source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean contentEquals(Slice other) {
+            final int length = end - start;
+            if (length != other.end - other.start) {
+                return false;
+            }
+            // the same lock with substring, the arrays may be replaced by reading stream
+            final char[] chars, otherChars;
+            synchronized (source) {
+                chars = source.chars;
+            }
+            synchronized (other.source) {
+                otherChars = other.source.chars;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[start + i] != otherChars[other.start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return source.substring(start, end);
+        }
+    }
+
+    /**
+     * {@link SparseArray} view of store, bundles are built when they are accessed at the first time.
+     */
+    static final class BundleView extends SparseArray<Bundle> {
+        private final CellData store;
+
+        BundleView(CellData store) {
+            super(store.size());
+            this.store = store;
+            final int size = store.size();
+            for (int i = 0; i < size; i++) {
+                append(store.keyAt(i), null);
+            }
+        }
+
+        @Override
+        public Bundle get(int key) {
+            return get(key, null);
+        }
+
+        @Override
+        public Bundle get(int key, Bundle valueIfKeyNotFound) {
+            final int index = indexOfKey(key);
+            return index < 0 ? valueIfKeyNotFound : valueAt(index);
+        }
+
+        @Override
+        public Bundle valueAt(int index) {
+            Bundle bundle = super.valueAt(index);
+            if (null == bundle) {
+                bundle = store.getBundle(keyAt(index));
+                setValueAt(index, bundle);
+            }
+            return bundle;
+        }
+    }
+
+}
@@ -2,8 +2,9 @@ package org.pinwheel.view.celllayout;
 
 import android.util.Log;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -19,6 +20,8 @@ final class CellDirector {
 
     private Cell root;
     private LifeCycleCallback callback;
+    private float scale = 1f;
+    private FlatGeometry flat; // optional, for large tree
 
     void setCallback(LifeCycleCallback callback) {
         this.callback = callback;
@@ -36,13 +39,77 @@ final class CellDirector {
         return root;
     }
 
+    void setScale(float scale) {
+        if (this.scale == scale) return;
+        this.scale = scale;
+        clearMeasureAndLayout();
+    }
+
+    /**
+     * all cells will be measured and layout again
+     */
+    void clearMeasureAndLayout() {
+        foreachAllCells(true, new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                cell.clearMeasureAndLayout();
+                return false;
+            }
+        });
+    }
+
+    float getScale() {
+        return scale;
+    }
+
+    /**
+     * keep rects in flat arrays, scroll and visible check are linear loops, it works after next layout
+     */
+    void setFlatGeometry(boolean is) {
+        if (is == (null != flat)) return;
+        flat = is ? new FlatGeometry() : null;
+        clearMeasureAndLayout();
+    }
+
+    /**
+     * write back the rects which are delayed by flat geometry, call it before reading rects of invisible cells.
+     * it's safe on UIThread, it waits for the updating on sync thread.
+     */
+    void syncGeometry() {
+        final FlatGeometry flat = this.flat;
+        if (null != flat) {
+            flat.sync();
+        }
+    }
+
     void measure(int width, int height) {
         if (0 >= width && 0 >= height) return;
         if (!hasRoot() || root.isMeasured()) return;
-        Log.d(CellLayout.TAG, "[director.measure] w: " + width + ", h: " + height);
+        Log.d(CellLayout.TAG, "[director.measure] w: " + width + ", h: " + height + ", scale: " + scale);
+        root.setScale(scale);
+        if (root instanceof LinearGroup) {
+            // the flag is kept until next measure, layout uses it too
+            ((LinearGroup) root).setParallel(Parallel.isEnable() && hasCells(PARALLEL_THRESHOLD));
+        }
         root.measure(width, height);
     }
 
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    /**
+     * stop counting when it's enough
+     */
+    private boolean hasCells(final int count) {
+        final int[] counter = new int[1];
+        foreachAllCells(true, new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                return ++counter[0] >= count;
+            }
+        });
+        return counter[0] >= count;
+    }
+
     void layout(int x, int y) {
         if (!hasRoot() || root.isLayout()) return;
         Log.d(CellLayout.TAG, "[director.layout] x: " + x + ", y: " + y);
@@ -51,48 +118,59 @@ final class CellDirector {
     }
 
     private void postInvalidate() {
-        Sync.execute(new Sync.Function<Collection<Cell>>() {
+        Sync.execute(new Sync.Function<CellSet>() {
             @Override
-            public Collection<Cell> call() {
-                final Set<Cell> stateChangedCells = new HashSet<>();
+            public CellSet call() {
+                final CellSet stateChangedCells = new CellSet(32);
+                final List<RecyclingGridGroup> grids = new ArrayList<>(0);
+                final FlatGeometry flat = CellDirector.this.flat;
+                if (null != flat) {
+                    flat.build(root);
+                    flat.update(0, flat.size(), 0, 0, getVisibleArea(), getFarArea(), stateChangedCells, grids);
+                    recycleGrids(flat, grids, stateChangedCells);
+                    return stateChangedCells;
+                }
                 foreachAllCells(true, new Filter<Cell>() {
                     @Override
                     public boolean call(Cell cell) {
+                        if (cell instanceof RecyclingGridGroup) {
+                            grids.add((RecyclingGridGroup) cell);
+                        }
                         // set state
                         if (setVisibleState(cell)) {
                             stateChangedCells.add(cell);
                         }
+                        if (cell instanceof GridGroup) {
+                            ((GridGroup) cell).computeVisibleSlots(getVisibleArea());
+                        }
                         return false;
                     }
                 });
+                recycleGrids(null, grids, stateChangedCells);
                 return stateChangedCells;
             }
-        }, new Sync.Action<Collection<Cell>>() {
+        }, new Sync.Action<CellSet>() {
             @Override
-            public void call(Collection<Cell> stateChangedCells) {
-                for (Cell cell : stateChangedCells) {
-                    onCellVisibleChanged(cell);
+            public void call(CellSet stateChangedCells) {
+                final int size = stateChangedCells.size();
+                for (int i = 0; i < size; i++) {
+                    onCellVisibleChanged(stateChangedCells.keyAt(i));
                 }
                 onRefreshActiveCells();
             }
         });
     }
 
-    private Cell tmp = null;
-
     Cell findCellByPosition(final int x, final int y) {
-        tmp = null;
-        foreachAllCells(false, new Filter<Cell>() {
-            @Override
-            public boolean call(Cell cell) {
-                if (cell.contains(x, y)) {
-                    tmp = cell;
-                    return true;
-                }
-                return false;
-            }
-        });
-        return tmp;
+        syncGeometry();
+        if (!hasRoot()) {
+            return null;
+        } else if (root instanceof CellGroup) {
+            // grid finds child by slot directly
+            return ((CellGroup) root).findCellByPosition(x, y);
+        } else {
+            return root.contains(x, y) ? root : null;
+        }
     }
 
     LinearGroup findLinearGroupBy(Cell cell, final int orientation) {
@@ -123,28 +201,49 @@ final class CellDirector {
             return false;
         }
         scrollingGroups.add(group);
-        Sync.execute(new Sync.Function<Collection<Cell>>() {
+        Sync.execute(new Sync.Function<CellSet>() {
             @Override
-            public Collection<Cell> call() {
-                final Set<Cell> stateChangedCells = new HashSet<>();
+            public CellSet call() {
+                final CellSet stateChangedCells = new CellSet(32);
+                final List<RecyclingGridGroup> grids = new ArrayList<>(0);
+                final FlatGeometry flat = CellDirector.this.flat;
+                final int index = null != flat ? flat.indexOf(group) : -1;
+                if (index >= 0) {
+                    if (group instanceof RecyclingGridGroup) {
+                        grids.add((RecyclingGridGroup) group);
+                    }
+                    // don't move self
+                    flat.update(index + 1, flat.getEnd(index), dx, dy, getVisibleArea(), getFarArea(), stateChangedCells, grids);
+                    recycleGrids(flat, grids, stateChangedCells);
+                    return stateChangedCells;
+                }
                 group.foreachAllCells(true, new Filter<Cell>() {
                     @Override
                     public boolean call(Cell cell) {
-                        if (cell == group) return false; // don't move self
-                        cell.offset(dx, dy);
-                        if (setVisibleState(cell)) {
-                            stateChangedCells.add(cell);
+                        if (cell instanceof RecyclingGridGroup) {
+                            grids.add((RecyclingGridGroup) cell);
+                        }
+                        if (cell != group) { // don't move self
+                            cell.offset(dx, dy);
+                            if (setVisibleState(cell)) {
+                                stateChangedCells.add(cell);
+                            }
+                        }
+                        if (cell instanceof GridGroup) {
+                            ((GridGroup) cell).computeVisibleSlots(getVisibleArea());
                         }
                         return false;
                     }
                 });
+                recycleGrids(null, grids, stateChangedCells);
                 return stateChangedCells;
             }
-        }, new Sync.Action<Collection<Cell>>() {
+        }, new Sync.Action<CellSet>() {
             @Override
-            public void call(Collection<Cell> stateChangedCells) {
-                for (Cell cell : stateChangedCells) {
-                    onCellVisibleChanged(cell);
+            public void call(CellSet stateChangedCells) {
+                final int size = stateChangedCells.size();
+                for (int i = 0; i < size; i++) {
+                    onCellVisibleChanged(stateChangedCells.keyAt(i));
                 }
                 // sync notify, don't use group.getScroll() in method
                 notifyGroupScroll(group, dx, dy);
@@ -187,7 +286,13 @@ final class CellDirector {
 
     void notifyScrollComplete() {
         // must be wait scroll action complete !
-        Sync.execute(new Sync.Action() {
+        Sync.execute(new Sync.Function<Object>() {
+            @Override
+            public Object call() {
+                syncGeometry();
+                return null;
+            }
+        }, new Sync.Action<Object>() {
             @Override
             public void call(Object o) {
                 if (null != callback) {
@@ -202,13 +307,58 @@ final class CellDirector {
         });
     }
 
+    /**
+     * move the items of grids to the visible area, the moved items are notified even if the state isn't changed
+     */
+    private void recycleGrids(FlatGeometry flat, List<RecyclingGridGroup> grids, CellSet stateChangedCells) {
+        if (grids.isEmpty()) return;
+        final Rect area = getVisibleArea();
+        for (RecyclingGridGroup grid : grids) {
+            final int index = null != flat ? flat.indexOf(grid) : -1;
+            if (index >= 0) {
+                flat.sync(index + 1, flat.getEnd(index));
+            }
+            for (Cell cell : grid.recycle(area)) {
+                if (index >= 0) {
+                    flat.pull(cell);
+                }
+                if (setVisibleState(cell) || cell.isVisible()) {
+                    stateChangedCells.add(cell);
+                }
+            }
+        }
+    }
+
     private boolean setVisibleState(Cell cell) {
         final boolean oldState = cell.isVisible();
+        final CellGroup parent = cell.getParent();
+        if (cell instanceof PlaceholderCell || cell instanceof SpacerCell) {
+            cell.setVisible(Rect.intersects(getFarArea(), cell));
+        } else if (parent instanceof GridGroup && ((GridGroup) parent).hasVisibleSlots()) {
+            // the range of slots has been computed by parent
+            cell.setVisible(((GridGroup) parent).isInVisibleSlots(cell));
+        } else {
+            cell.setVisible(Rect.intersects(getVisibleArea(), cell) && !RecyclingGridGroup.isParked(cell));
+        }
+        return oldState != cell.isVisible();
+    }
+
+    /**
+     * expand visible area, the views are prepared before they scroll into screen
+     */
+    private Rect getVisibleArea() {
         final Rect area = new Rect(root);
-        // expand visible area
         area.inset(-area.width() / 5, -area.height() / 5);
-        cell.setVisible(Rect.intersects(area, cell));
-        return oldState != cell.isVisible();
+        return area;
+    }
+
+    /**
+     * materialize placeholder before it scroll into screen
+     */
+    private Rect getFarArea() {
+        final Rect area = new Rect(root);
+        area.inset(-area.width(), -area.height());
+        return area;
     }
 
     private void foreachAllCells(boolean withGroup, Filter<Cell> filter) {
@@ -20,7 +20,7 @@ public class CellGroup extends Cell implements Scrollable, Mask {
     @Attribute("mask")
     boolean openMask = false;
 
-    private final List<Cell> subCells = new ArrayList<>();
+    private List<Cell> subCells = new ArrayList<>();
 
     OnScrollListener onScrollListener;
 
@@ -28,8 +28,41 @@ public class CellGroup extends Cell implements Scrollable, Mask {
         super();
     }
 
+    CellGroup(int id) {
+        super(id);
+    }
+
+    /**
+     * the copy has no children
+     */
+    @Override
+    CellGroup copy(int id) {
+        final CellGroup group = (CellGroup) super.copy(id);
+        group.subCells = new ArrayList<>();
+        group.scrollX = group.scrollY = 0;
+        group.onScrollListener = null;
+        return group;
+    }
+
+    @Override
+    protected void measure(int width, int height) {
+        super.measure(width, height);
+        // children use the same scale with parent
+        final float scale = getScale();
+        final int size = subCells.size();
+        for (int i = 0; i < size; i++) {
+            subCells.get(i).setScale(scale);
+        }
+    }
+
+    /**
+     * the sizes of sub tree are restored from {@link MeasureCache}, compute the others which are set in measure
+     */
+    void onMeasureRestored() {
+    }
+
     public void merge(Cell cell) {
-        final CellGroup.Params p = cell.getParams();
+        final CellGroup.Params p = cell.params();
         if (null != p) {
             addCell(cell, p);
         } else {
@@ -51,6 +84,40 @@ public class CellGroup extends Cell implements Scrollable, Mask {
     }
 
     final void addCellInner(Cell cell, Params p) {
+        addCellInner(subCells.size(), cell, p);
+    }
+
+    final void addCellInner(int index, Cell cell, Params p) {
+        checkNewCell(cell, p);
+        cell.setParent(this);
+        cell.setParams(p);
+        subCells.add(index, cell);
+        updateIndexInParent(index);
+        if (null != this.index) {
+            this.index.add(cell);
+        }
+    }
+
+    /**
+     * insert cells with their own params, the indexes of children are updated once
+     */
+    final void addCellsInner(int index, List<? extends Cell> cells) {
+        for (Cell cell : cells) {
+            checkNewCell(cell, cell.params());
+        }
+        for (Cell cell : cells) {
+            cell.setParent(this);
+        }
+        subCells.addAll(index, cells);
+        updateIndexInParent(index);
+        if (null != this.index) {
+            for (Cell cell : cells) {
+                this.index.add(cell);
+            }
+        }
+    }
+
+    private void checkNewCell(Cell cell, Params p) {
         final int id = null == cell ? -1 : cell.getId();
         if (id <= 0) {
             throw new IllegalStateException("cell id error !");
@@ -61,9 +128,34 @@ public class CellGroup extends Cell implements Scrollable, Mask {
         if (null != cell.getParent()) {
             throw new IllegalStateException("cell already has parent !");
         }
-        cell.setParent(this);
-        cell.setParams(p);
-        subCells.add(cell);
+    }
+
+    private void updateIndexInParent(int from) {
+        final int size = subCells.size();
+        for (int i = from; i < size; i++) {
+            subCells.get(i).setIndexInParent(i);
+        }
+    }
+
+    /**
+     * move all children of other group to the end, the groups should be the same type
+     */
+    final void appendAll(CellGroup other) {
+        final List<Cell> cells = new ArrayList<>(other.subCells);
+        other.removeCellsInner(0, cells.size());
+        addCellsInner(subCells.size(), cells);
+        requestMeasureAndLayout();
+    }
+
+    /**
+     * index of child, -1 if it isn't a child of group
+     */
+    public final int indexOfCell(Cell cell) {
+        if (null == cell || this != cell.getParent()) {
+            return -1;
+        }
+        final int index = cell.getIndexInParent();
+        return index >= 0 && index < subCells.size() && subCells.get(index) == cell ? index : -1;
     }
 
     public boolean removeCell(Cell cell) {
@@ -75,17 +167,88 @@ public class CellGroup extends Cell implements Scrollable, Mask {
     }
 
     final boolean removeCellInner(Cell cell) {
-        if (null == cell) {
+        final int index = indexOfCell(cell);
+        if (index < 0) {
             return false;
         }
-        if (!subCells.contains(cell)) {
+        removeCellsInner(index, index + 1);
+        return true;
+    }
+
+    /**
+     * remove children in range [from, to)
+     */
+    public void removeCells(int from, int to) {
+        if (from < to) {
+            removeCellsInner(from, to);
+            requestMeasureAndLayout();
+        }
+    }
+
+    final void removeCellsInner(int from, int to) {
+        final List<Cell> range = subCells.subList(from, to);
+        for (Cell cell : range) {
+            cell.setParent(null);
+            cell.setIndexInParent(-1);
+            if (null != cell.index) {
+                cell.index.remove(cell);
+            }
+        }
+        range.clear();
+        updateIndexInParent(from);
+    }
+
+    public boolean replaceCell(Cell oldCell, Cell newCell) {
+        final CellGroup.Params p = null != newCell && null != newCell.params() ?
+                newCell.params() : (null != oldCell ? oldCell.params() : null);
+        final boolean result = replaceCellInner(oldCell, newCell, p);
+        if (result) {
+            newCell.requestMeasureAndLayout();
+        }
+        return result;
+    }
+
+    final boolean replaceCellInner(Cell oldCell, Cell newCell, Params p) {
+        final int index = indexOfCell(oldCell);
+        if (index < 0) {
             return false;
         }
-        subCells.remove(cell);
-        cell.setParent(null);
+        if (null == newCell || newCell.getId() <= 0) {
+            throw new IllegalStateException("cell id error !");
+        }
+        if (null == p) {
+            throw new IllegalStateException("cell must be have Params !");
+        }
+        if (null != newCell.getParent()) {
+            throw new IllegalStateException("cell already has parent !");
+        }
+        oldCell.setParent(null);
+        oldCell.setIndexInParent(-1);
+        newCell.setParent(this);
+        newCell.setIndexInParent(index);
+        newCell.setParams(p);
+        subCells.set(index, newCell);
+        if (null != oldCell.index) {
+            oldCell.index.remove(oldCell);
+        }
+        if (null != this.index) {
+            this.index.add(newCell);
+        }
         return true;
     }
 
+    /**
+     * the children should be recycled before
+     */
+    @Override
+    void reset() {
+        super.reset();
+        openMask = false;
+        subCells.clear();
+        scrollX = scrollY = 0;
+        onScrollListener = null;
+    }
+
     public Cell getCellAt(int order) {
         return subCells.get(order);
     }
@@ -142,6 +305,10 @@ public class CellGroup extends Cell implements Scrollable, Mask {
 
     @Override
     public Cell findCellById(int cellId) {
+        if (null != index) { // find by index of content
+            final Cell target = index.findById(cellId);
+            return null != target && target.isAttachedTo(this) ? target : null;
+        }
         Cell target = super.findCellById(cellId);
         if (null == target) {
             for (Cell cell : subCells) {
@@ -159,6 +326,33 @@ public class CellGroup extends Cell implements Scrollable, Mask {
         return target;
     }
 
+    /**
+     * find the first leaf cell which contains the point
+     */
+    Cell findCellByPosition(int x, int y) {
+        final int size = subCells.size();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = subCells.get(i);
+            if (cell instanceof CellGroup) {
+                final Cell target = ((CellGroup) cell).findCellByPosition(x, y);
+                if (null != target) {
+                    return target;
+                }
+            } else if (cell.contains(x, y)) {
+                return cell;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * same with {@link Math#floorDiv(int, int)}, it's not available below java 8
+     */
+    static int floorDiv(int x, int y) {
+        final int r = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? r - 1 : r;
+    }
+
     final void foreachSubCells(boolean withGroup, Filter<Cell> filter) {
         final int size = subCells.size();
         for (int i = 0; i < size; i++) {
@@ -206,13 +400,20 @@ public class CellGroup extends Cell implements Scrollable, Mask {
         this.onScrollListener = onScrollListener;
     }
 
-    public static class Params implements Serializable {
+    /**
+     * size and margins are design unit of template, convert them to pixel by {@link Cell#scaled(int)} of the cell
+     */
+    public static class Params implements Serializable, Cloneable {
         @Attribute("style")
         public int styleId = StyleAdapter.DEF_STYLE_ID;
         @Attribute(fixedResolution = true)
         public int width, height;
         @Attribute(fixedResolution = true)
         public int marginLeft, marginTop, marginRight, marginBottom;
+        /**
+         * shared by cells of template, it's read only
+         */
+        transient boolean shared = false;
 
         Params() {
             this(0, 0);
@@ -222,6 +423,17 @@ public class CellGroup extends Cell implements Scrollable, Mask {
             this.width = width;
             this.height = height;
         }
+
+        Params copy() {
+            final Params p;
+            try {
+                p = (Params) clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+            p.shared = false;
+            return p;
+        }
     }
 
     public interface OnScrollListener {
@@ -0,0 +1,124 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Index of all cells in content by id and key, it's updated when the cells are added or removed.
+ * The key is found as the last added cell, the earlier cell of the same key is found again after it's removed.
+ *
+ * @author dnwang
+ * @version 2018/12/29,09:40
+ */
+final class CellIndex {
+
+    private final CellSet ids = new CellSet(256);
+    // key -> cell, or list of cells in added order if the key is duplicate
+    private final HashMap<String, Object> keys = new HashMap<>();
+
+    /**
+     * add the cell and all cells of it's sub tree
+     */
+    void add(Cell cell) {
+        if (null == cell) return;
+        ids.put(cell, null);
+        final String key = cell.getKey();
+        if (null != key) {
+            addKey(key, cell);
+        }
+        cell.index = this;
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                add(group.getCellAt(i));
+            }
+        }
+    }
+
+    /**
+     * remove the cell and all cells of it's sub tree
+     */
+    void remove(Cell cell) {
+        if (null == cell || this != cell.index) return;
+        final int index = ids.indexOfKey(cell);
+        if (index >= 0 && ids.keyAt(index) == cell) {
+            ids.removeAt(index);
+        }
+        final String key = cell.getKey();
+        if (null != key) {
+            removeKey(key, cell);
+        }
+        cell.index = null;
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                remove(group.getCellAt(i));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addKey(String key, Cell cell) {
+        final Object value = keys.get(key);
+        if (null == value) {
+            keys.put(key, cell);
+        } else if (value instanceof Cell) {
+            final List<Cell> cells = new ArrayList<>(2);
+            cells.add((Cell) value);
+            cells.add(cell);
+            keys.put(key, cells);
+        } else {
+            ((List<Cell>) value).add(cell);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeKey(String key, Cell cell) {
+        final Object value = keys.get(key);
+        if (value == cell) {
+            keys.remove(key);
+        } else if (value instanceof List) {
+            final List<Cell> cells = (List<Cell>) value;
+            cells.remove(cell);
+            if (1 == cells.size()) {
+                keys.put(key, cells.get(0));
+            }
+        }
+    }
+
+    void clear() {
+        final int size = ids.size();
+        for (int i = 0; i < size; i++) {
+            ids.keyAt(i).index = null;
+        }
+        ids.clear();
+        keys.clear();
+    }
+
+    Cell findById(int id) {
+        final int index = ids.indexOfId(id);
+        return index >= 0 ? ids.keyAt(index) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    Cell findByKey(String key) {
+        final Object value = null != key ? keys.get(key) : null;
+        if (value instanceof List) {
+            final List<Cell> cells = (List<Cell>) value;
+            return cells.get(cells.size() - 1);
+        }
+        return (Cell) value;
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+}
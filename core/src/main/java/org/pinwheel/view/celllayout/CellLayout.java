@@ -1,7 +1,9 @@
 package org.pinwheel.view.celllayout;
 
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -12,6 +14,7 @@ import android.os.Build;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.FocusFinder;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
@@ -19,11 +22,15 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Copyright (C), 2018 <br>
@@ -115,14 +122,52 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     protected void onAttachedToWindow() {
         Sync.prepare();
         super.onAttachedToWindow();
+        getContext().getApplicationContext().registerComponentCallbacks(memoryCallbacks);
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        getContext().getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+        cancelContentStream();
+        // the extra views may be used by other layouts
+        viewManager.trimPools(0, true);
+        cellPool.clear();
         Sync.release();
     }
 
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (VISIBLE != visibility && null != viewManager) { // it's called by constructor of view
+            viewManager.trimPools(0, true);
+        }
+    }
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                viewManager.trimPools(0, false);
+                cellPool.clear();
+            } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+                viewManager.trimPools(0.5f, false);
+            }
+            if (null != viewManager.sharedPool) {
+                viewManager.sharedPool.trimMemory(level);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            onTrimMemory(TRIM_MEMORY_COMPLETE);
+        }
+    };
+
     private OnCellClickListener onCellClickListener;
     private OnCellSelectedChangeListener onCellSelectedChangeListener;
     private CellGroup.OnScrollListener onRootCellScrollListener;
@@ -160,6 +205,17 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         this.borderDrawable = drawable;
     }
 
+    /**
+     * the extra views are moved to shared pool, and the views of pool are reused by all layouts which attach it
+     */
+    public void setSharedViewPool(SharedViewPool pool) {
+        viewManager.sharedPool = pool;
+    }
+
+    public SharedViewPool getSharedViewPool() {
+        return viewManager.sharedPool;
+    }
+
     public void setAdapter(ViewAdapter adapter) {
         if (adapter instanceof StyleAdapter) {
             final StyleAdapter tmp = (StyleAdapter) adapter;
@@ -169,17 +225,839 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     }
 
     public void setContentCell(Cell root) {
+        setContentCell(root, true);
+    }
+
+    /**
+     * @param cancelStream false if the root is set by the loading stream itself
+     */
+    private void setContentCell(Cell root, boolean cancelStream) {
+        if (cancelStream) {
+            cancelContentStream();
+        }
+        resetCellSource();
         viewManager.checkAndReleaseCache(true);
         focusManager.clear();
         detachScrollListenerFromRoot();
+        cellIndex.clear();
         director.setRoot(root);
+        cellIndex.add(root);
         attachScrollListenerToRoot();
+        // the cell which isn't the root of template is never scaled
+        contentResolution = null != root ? root.targetResolution : 0;
+        setContentScale(contentResolution > 0 ? getResources().getDisplayMetrics().heightPixels * 1f / contentResolution : 1f);
     }
 
     public Cell getContentCell() {
         return director.getRoot();
     }
 
+    private final CellIndex cellIndex = new CellIndex();
+
+    /**
+     * find the cell of content by index, the cells are indexed when they are added.
+     * the rect of found cell is up to date even if it's out of screen.
+     */
+    public Cell findCellById(int id) {
+        director.syncGeometry();
+        return cellIndex.findById(id);
+    }
+
+    public Cell findCellByKey(String key) {
+        director.syncGeometry();
+        return cellIndex.findByKey(key);
+    }
+
+    private int contentResolution = 0;
+
+    /**
+     * set content with the scale computed by target resolution of template,
+     * it will be scaled again when the configuration changed.
+     */
+    public void setContentTemplate(TemplateFactory.Template template) {
+        setContentTemplate(template, true);
+    }
+
+    private void setContentTemplate(TemplateFactory.Template template, boolean cancelStream) {
+        if (viewManager.adapter instanceof StyleAdapter) {
+            ((StyleAdapter) viewManager.adapter).setCellData(template.cellData);
+        }
+        setContentCell(template.root, cancelStream);
+        prewarmViews(template.root);
+    }
+
+    private static final int MAX_PREWARM_VIEWS = 64;
+
+    /**
+     * count the styles of cells near viewport, and inflate their views on work thread before the first binding.
+     * the views are put into pools, it's skipped if the content or adapter is changed.
+     */
+    private void prewarmViews(Cell root) {
+        if (!(viewManager.adapter instanceof StyleAdapter) || null == root) return;
+        final StyleAdapter adapter = (StyleAdapter) viewManager.adapter;
+        if (null == adapter.inflater) return;
+        final int width = getWidth() > 0 ? getWidth() : getResources().getDisplayMetrics().widthPixels;
+        final int height = getHeight() > 0 ? getHeight() : getResources().getDisplayMetrics().heightPixels;
+        final SparseIntArray counts = new SparseIntArray();
+        // the same with visible area of director
+        countStyles(root, width + width / 5, height + height / 5, director.getScale(), counts);
+        if (0 == counts.size()) return;
+        // the styles of adapter may be changed on UIThread
+        final SparseIntArray layouts = new SparseIntArray(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            layouts.put(counts.keyAt(i), adapter.getLayoutId(counts.keyAt(i)));
+        }
+        final LayoutInflater inflater = adapter.inflater.cloneInContext(getContext());
+        final int generation = viewManager.prewarmGeneration;
+        Parallel.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int size = counts.size();
+                for (int i = 0; i < size; i++) {
+                    final int styleId = counts.keyAt(i);
+                    final int count = counts.valueAt(i);
+                    for (int j = 0; j < count && generation == viewManager.prewarmGeneration; j++) {
+                        final View view;
+                        try {
+                            view = StyleAdapter.inflateLayout(layouts.get(styleId), inflater);
+                        } catch (Exception e) {
+                            // some views must be created on UIThread, they will be inflated when binding
+                            Log.w(TAG, "[prewarm] inflate style " + styleId + " failed ! " + e.getMessage());
+                            break;
+                        }
+                        if (null == view) break;
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                viewManager.addPrewarmView(generation, styleId, view);
+                            }
+                        });
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * the rects aren't computed yet, use the declared size of params in linear group
+     *
+     * @return false if it's enough
+     */
+    private boolean countStyles(Cell cell, int width, int height, float scale, SparseIntArray counts) {
+        if (cell instanceof PlaceholderCell || cell instanceof SpacerCell) {
+            return true; // no view
+        } else if (cell instanceof LinearGroup) {
+            final LinearGroup group = (LinearGroup) cell;
+            final boolean horizontal = LinearGroup.HORIZONTAL == group.getOrientation();
+            final int extent = horizontal ? width : height;
+            final int size = group.getCellCount();
+            int offset = 0;
+            for (int i = 0; i < size && offset < extent; i++) {
+                final Cell child = group.getCellAt(i);
+                final CellGroup.Params p = child.params();
+                if (!countStyles(child, horizontal ? extent - offset : width, horizontal ? height : extent - offset, scale, counts)) {
+                    return false;
+                }
+                final int childExtent = horizontal ? p.width + p.marginLeft + p.marginRight
+                        : p.height + p.marginTop + p.marginBottom;
+                offset += (int) ((childExtent + group.getDivider()) * scale);
+            }
+            return true;
+        } else if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                if (!countStyles(group.getCellAt(i), width, height, scale, counts)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (null != cell.params()) {
+            final int type = viewManager.adapter.getViewType(cell);
+            counts.put(type, counts.get(type) + 1);
+            int total = 0;
+            for (int i = 0; i < counts.size(); i++) {
+                total += counts.valueAt(i);
+            }
+            return total < MAX_PREWARM_VIEWS;
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * apply the differences between new template and current content, the views and focus of unchanged cells are kept.
+     * cells are matched by 'key', the cell without key is matched by position and type.
+     */
+    public void applyTemplate(TemplateFactory.Template template) {
+        final Cell root = director.getRoot();
+        final CellData cellData = viewManager.adapter instanceof StyleAdapter ?
+                ((StyleAdapter) viewManager.adapter).getCellData() : null;
+        final TemplatePatcher patcher = new TemplatePatcher(cellData, template.cellData, new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                viewManager.removeCell(cell); // view type will be changed
+                return false;
+            }
+        });
+        if (null == root || !patcher.patch(root, template.root)) {
+            setContentTemplate(template);
+            return;
+        }
+        cancelContentStream();
+        final Cell focus = focusManager.getFocus();
+        for (Cell cell : patcher.removedCells) {
+            releaseSection(cell, cellData);
+        }
+        if (null != focus && !focus.isAttachedTo(root)) {
+            focusManager.clear();
+        }
+        for (Cell cell : patcher.changedCells) {
+            viewManager.rebindCell(cell, null);
+        }
+        director.clearMeasureAndLayout();
+        contentResolution = template.targetResolution;
+        director.getRoot().targetResolution = contentResolution;
+        final float scale = template.getScale(getResources().getDisplayMetrics().heightPixels);
+        if (scale != director.getScale()) {
+            setContentScale(scale);
+        } else {
+            requestLayout();
+        }
+    }
+
+    /**
+     * rebind the visible cells, payload will be passed to {@link PayloadViewAdapter} if it's not null
+     */
+    public void notifyCellsChanged(int[] ids, Object payload) {
+        if (null == ids || 0 == ids.length) return;
+        final SparseArray<Object> changed = new SparseArray<>(ids.length);
+        for (int id : ids) {
+            changed.put(id, payload);
+        }
+        notifyCellsChanged(changed);
+    }
+
+    public void notifyCellChanged(Cell cell, Object payload) {
+        if (null != cell) {
+            viewManager.rebindCell(cell, payload);
+        }
+    }
+
+    /**
+     * only the cells which have content view will be rebound
+     */
+    private void notifyCellsChanged(SparseArray<Object> payloads) {
+        final CellMap<View> activeCells = viewManager.activeCells;
+        for (int i = activeCells.size() - 1; i >= 0; i--) {
+            final Cell cell = activeCells.keyAt(i);
+            final int index = payloads.indexOfKey(cell.getId());
+            if (index >= 0) {
+                viewManager.rebindCell(cell, payloads.valueAt(index));
+            }
+        }
+    }
+
+    /**
+     * update data of cells without changing the template, eg: {"12": {"price": 10}, "key_of_cell": {"badge": null}}.
+     * name of patch is the id or key of cell, the key with null value will be removed.
+     * the changed fields are passed as payload to rebind visible cells.
+     */
+    public void updateData(JSONObject patch) {
+        if (null == patch || 0 == patch.length() || !director.hasRoot()) return;
+        if (!(viewManager.adapter instanceof StyleAdapter)) {
+            Log.w(TAG, "[updateData] only StyleAdapter holds the data of cells !");
+            return;
+        }
+        final CellData cellData = ((StyleAdapter) viewManager.adapter).getCellData();
+        final SparseArray<Object> payloads = new SparseArray<>(patch.length());
+        final Iterator<String> names = patch.keys();
+        while (names.hasNext()) {
+            final String name = names.next();
+            final JSONObject values = patch.optJSONObject(name);
+            if (null == values) continue;
+            final Cell cell = cellIndex.findByKey(name);
+            final int id;
+            if (null != cell) {
+                id = cell.getId();
+            } else {
+                try {
+                    id = Integer.parseInt(name);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "[updateData] can't found cell: " + name);
+                    continue;
+                }
+            }
+            cellData.update(id, values);
+            payloads.put(id, values);
+        }
+        notifyCellsChanged(payloads);
+    }
+
+    private CellSource cellSource;
+    private int prefetchDistance, windowDistance;
+    private int nextPage;
+    private boolean pageLoading, noMorePage;
+    // drop the page which is loaded by old source
+    private int sourceGeneration = 0;
+    // the sections of root which are loaded from source, id of section -> page and index in page
+    private final SparseIntArray sectionPages = new SparseIntArray();
+    private final SparseIntArray sectionIndexes = new SparseIntArray();
+
+    public void setCellSource(CellSource source) {
+        setCellSource(source, -1);
+    }
+
+    /**
+     * the next page will be loaded when the distance between the end of content and screen is less than prefetchDistance.
+     *
+     * @param prefetchDistance pixels, -1 means the size of screen
+     */
+    public void setCellSource(CellSource source, int prefetchDistance) {
+        setCellSource(source, prefetchDistance, 0);
+    }
+
+    /**
+     * windowed mode, the sections of root which are far behind the screen more than windowDistance will be replaced by spacers,
+     * and they will be loaded from source again when they are close to the screen. the memory is bounded for endless feed.
+     *
+     * @param windowDistance pixels, 0 means never evict
+     */
+    public void setCellSource(CellSource source, int prefetchDistance, int windowDistance) {
+        resetCellSource();
+        this.cellSource = source;
+        this.prefetchDistance = prefetchDistance;
+        this.windowDistance = windowDistance;
+        checkAndLoadNextPage();
+    }
+
+    private void resetCellSource() {
+        cellSource = null;
+        nextPage = 0;
+        pageLoading = false;
+        noMorePage = false;
+        sourceGeneration++;
+        sectionPages.clear();
+        sectionIndexes.clear();
+    }
+
+    /**
+     * only one page is loading at the same time
+     */
+    private void checkAndLoadNextPage() {
+        if (null == cellSource || pageLoading || noMorePage || !isNearContentEnd()) return;
+        pageLoading = true;
+        final CellSource source = cellSource;
+        final int page = nextPage;
+        final int generation = sourceGeneration;
+        Parallel.execute(new Runnable() {
+            @Override
+            public void run() {
+                TemplateFactory.Template template = null;
+                Exception error = null;
+                CellPool.attach(cellPool);
+                try {
+                    template = source.loadPage(page);
+                } catch (Exception e) {
+                    error = e;
+                } finally {
+                    CellPool.detach();
+                }
+                final TemplateFactory.Template result = template;
+                final Exception exception = error;
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != sourceGeneration) return;
+                        pageLoading = false;
+                        if (null != exception) {
+                            // try again at the next checking
+                            Log.e(TAG, "[CellSource] load page " + page + " failed ! " + exception.getMessage());
+                        } else if (null == result) {
+                            noMorePage = true;
+                        } else {
+                            nextPage++;
+                            appendPage(result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean isNearContentEnd() {
+        if (!director.hasRoot()) return true;
+        final Cell root = director.getRoot();
+        if (!(root instanceof LinearGroup)) return false;
+        if (!root.isLayout()) return false; // wait for layout
+        final LinearGroup linear = (LinearGroup) root;
+        final int remain, distance;
+        if (LinearGroup.HORIZONTAL == linear.getOrientation()) {
+            remain = linear.getContentWidth() + linear.getScrollX() - linear.width();
+            distance = prefetchDistance < 0 ? linear.width() : prefetchDistance;
+        } else {
+            remain = linear.getContentHeight() + linear.getScrollY() - linear.height();
+            distance = prefetchDistance < 0 ? linear.height() : prefetchDistance;
+        }
+        return remain <= distance;
+    }
+
+    /**
+     * move children of page to the end of content without re-measuring the exist cells
+     */
+    private void appendPage(TemplateFactory.Template page) {
+        if (!director.hasRoot()) {
+            final CellSource source = cellSource;
+            final int generation = sourceGeneration, next = nextPage;
+            setContentTemplate(page);
+            // keep paging state
+            cellSource = source;
+            sourceGeneration = generation;
+            nextPage = next;
+            if (page.root instanceof CellGroup) {
+                addSections((CellGroup) page.root, next - 1);
+            }
+            return;
+        }
+        if (viewManager.adapter instanceof StyleAdapter) {
+            ((StyleAdapter) viewManager.adapter).getCellData().merge(page.cellData);
+        }
+        final CellGroup root = (CellGroup) director.getRoot();
+        if (page.root.getClass() == root.getClass()) {
+            addSections((CellGroup) page.root, nextPage - 1);
+            root.appendAll((CellGroup) page.root);
+        } else {
+            addSection(page.root, nextPage - 1, -1);
+            root.merge(page.root);
+        }
+        requestLayout();
+    }
+
+    private void addSections(CellGroup pageRoot, int page) {
+        final int size = pageRoot.getCellCount();
+        for (int i = 0; i < size; i++) {
+            addSection(pageRoot.getCellAt(i), page, i);
+        }
+    }
+
+    /**
+     * @param index -1 means the root of page
+     */
+    private void addSection(Cell section, int page, int index) {
+        sectionPages.put(section.getId(), page);
+        sectionIndexes.put(section.getId(), index);
+    }
+
+    /**
+     * replace the sections which are far behind the screen by spacers, just the section from source can be evicted.
+     * the distance is one screen at least, or the sections may be restored and evicted again and again.
+     */
+    private void checkAndEvictSections() {
+        if (null == cellSource || windowDistance <= 0 || !director.hasRoot()) return;
+        final Cell root = director.getRoot();
+        if (!(root instanceof LinearGroup) || !root.isLayout()) return;
+        final LinearGroup linear = (LinearGroup) root;
+        final boolean horizontal = LinearGroup.HORIZONTAL == linear.getOrientation();
+        final int distance = Math.max(windowDistance, horizontal ? linear.width() : linear.height());
+        final int start = (horizontal ? linear.getLeft() : linear.getTop()) - distance;
+        final CellData cellData = viewManager.adapter instanceof StyleAdapter ?
+                ((StyleAdapter) viewManager.adapter).getCellData() : null;
+        final Cell focus = focusManager.getFocus();
+        List<Cell> evicted = null;
+        boolean focusEvicted = false;
+        int end = 0; // the first section which is kept
+        final int size = linear.getCellCount();
+        for (; end < size; end++) {
+            final Cell section = linear.getCellAt(end);
+            if ((horizontal ? section.getRight() : section.getBottom()) >= start) {
+                break; // the others are closer
+            }
+            final int id = section.getId();
+            final int index = sectionPages.indexOfKey(id);
+            if (section instanceof SpacerCell || index < 0) {
+                continue;
+            }
+            final SpacerCell spacer = new SpacerCell(sectionPages.valueAt(index), sectionIndexes.get(id), section.params());
+            sectionPages.delete(id);
+            sectionIndexes.delete(id);
+            focusEvicted |= null != focus && focus.isAttachedTo(section);
+            releaseSection(section, cellData);
+            linear.replaceCell(section, spacer);
+            if (null == evicted) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(section);
+        }
+        if (null == evicted) return;
+        recycleSections(evicted, cellData);
+        end -= mergeSpacers(linear, end);
+        if (focusEvicted) {
+            // the nearest cell which is kept, instead of the first cell of content
+            final Cell target = findFirstFocusableCell(linear, end, true);
+            focusManager.setFocus(null != target ? target : findFirstFocusableCell(linear, end, false));
+        }
+        requestLayout();
+    }
+
+    /**
+     * merge the adjacent spacers before end
+     *
+     * @return count of removed spacers
+     */
+    private static int mergeSpacers(CellGroup root, int end) {
+        int count = 0;
+        for (int i = end - 1; i > 0; i--) {
+            final Cell cell = root.getCellAt(i), last = root.getCellAt(i - 1);
+            if (cell instanceof SpacerCell && last instanceof SpacerCell
+                    && !((SpacerCell) cell).restoring && !((SpacerCell) last).restoring) {
+                ((SpacerCell) last).merge((SpacerCell) cell);
+                root.removeCellsInner(i, i + 1);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param onScreen just find in the sections which are on screen, the focus is moved without scrolling
+     */
+    private static Cell findFirstFocusableCell(CellGroup root, int from, boolean onScreen) {
+        final int size = root.getCellCount();
+        for (int i = from; i < size; i++) {
+            final Cell cell = root.getCellAt(i);
+            if (onScreen && !Rect.intersects(root, cell)) {
+                continue;
+            }
+            final Cell target = cell instanceof CellGroup ? findFirstFocusableCell((CellGroup) cell) : cell;
+            if (null != target && target.isFocusable()) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    // recycled cells for the templates of this layout
+    private final CellPool cellPool = new CellPool();
+
+    /**
+     * the sync passes which are scheduled before eviction may still read the sections,
+     * recycle them after these passes, and drop the views which are bound by their results again.
+     */
+    private void recycleSections(final List<Cell> sections, final CellData cellData) {
+        Sync.execute(new Sync.Action() {
+            @Override
+            public void call(Object o) {
+                for (Cell section : sections) {
+                    releaseSection(section, cellData);
+                    cellPool.recycle(section);
+                }
+            }
+        });
+    }
+
+    /**
+     * drop the views and data rows of sub tree which is removed from content
+     */
+    private void releaseSection(Cell section, final CellData cellData) {
+        final Cell focus = focusManager.getFocus();
+        if (null != focus && focus.isAttachedTo(section)) {
+            focusManager.clear();
+        }
+        final Filter<Cell> release = new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                viewManager.removeCell(cell);
+                if (null != cellData) {
+                    cellData.remove(cell.getId());
+                }
+                return false;
+            }
+        };
+        if (section instanceof CellGroup) {
+            ((CellGroup) section).foreachAllCells(true, release);
+        } else {
+            release.call(section);
+        }
+    }
+
+    /**
+     * load the page of spacer which is the closest to the screen again, all sections of this page are restored together
+     */
+    private void restoreSections(final SpacerCell spacer) {
+        if (spacer.restoring || null == cellSource || !(director.getRoot() instanceof CellGroup)) return;
+        final CellGroup root = (CellGroup) director.getRoot();
+        final int page;
+        if (root instanceof LinearGroup && LinearGroup.HORIZONTAL == ((LinearGroup) root).getOrientation()) {
+            final int center = Math.max(spacer.getLeft(), Math.min(spacer.getRight(), root.centerX()));
+            page = spacer.findPage(center - spacer.getLeft());
+        } else {
+            final int center = Math.max(spacer.getTop(), Math.min(spacer.getBottom(), root.centerY()));
+            page = spacer.findPage(center - spacer.getTop());
+        }
+        markRestoring(root, page, true);
+        final CellSource source = cellSource;
+        final int generation = sourceGeneration;
+        Parallel.execute(new Runnable() {
+            @Override
+            public void run() {
+                TemplateFactory.Template template = null;
+                CellPool.attach(cellPool);
+                try {
+                    template = source.loadPage(page);
+                } catch (Exception e) {
+                    Log.e(TAG, "[CellSource] restore page " + page + " failed ! " + e.getMessage());
+                } finally {
+                    CellPool.detach();
+                }
+                final TemplateFactory.Template result = template;
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != sourceGeneration || root != director.getRoot()) return;
+                        if (null == result) {
+                            markRestoring(root, page, false); // try again at the next time
+                        } else {
+                            replaceSpacers(root, page, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void markRestoring(CellGroup root, int page, boolean is) {
+        final int size = root.getCellCount();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = root.getCellAt(i);
+            if (cell instanceof SpacerCell && ((SpacerCell) cell).hasPage(page)) {
+                ((SpacerCell) cell).restoring = is;
+            }
+        }
+    }
+
+    private void replaceSpacers(CellGroup root, int page, final TemplateFactory.Template template) {
+        final Cell[] sections;
+        if (template.root instanceof CellGroup && template.root.getClass() == root.getClass()) {
+            final CellGroup pageRoot = (CellGroup) template.root;
+            sections = new Cell[pageRoot.getCellCount()];
+            for (int i = 0; i < sections.length; i++) {
+                sections[i] = pageRoot.getCellAt(i);
+            }
+            pageRoot.removeCellsInner(0, sections.length);
+        } else {
+            sections = null;
+        }
+        final CellData cellData = viewManager.adapter instanceof StyleAdapter ?
+                ((StyleAdapter) viewManager.adapter).getCellData() : null;
+        final Filter<Cell> copyData = new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                cellData.copyRow(template.cellData, cell.getId(), cell.getId());
+                return false;
+            }
+        };
+        for (int i = 0; i < root.getCellCount(); i++) {
+            final Cell cell = root.getCellAt(i);
+            if (!(cell instanceof SpacerCell) || !((SpacerCell) cell).hasPage(page)) {
+                continue;
+            }
+            final SpacerCell spacer = (SpacerCell) cell;
+            spacer.restoring = false;
+            // split the spacer, the sections of other pages are kept in spacers
+            final List<Cell> cells = new ArrayList<>();
+            final int count = spacer.getSectionCount();
+            int from = 0;
+            for (int j = 0; j < count; j++) {
+                if (page != spacer.getPage(j)) {
+                    continue;
+                }
+                final int index = spacer.getIndex(j);
+                final Cell section = index < 0 ? template.root : (null != sections && index < sections.length ? sections[index] : null);
+                if (null == section || null != section.getParent()) {
+                    continue; // the page has been changed
+                }
+                if (null != cellData) {
+                    if (section instanceof CellGroup) {
+                        ((CellGroup) section).foreachAllCells(true, copyData);
+                    } else {
+                        copyData.call(section);
+                    }
+                }
+                if (from < j) {
+                    cells.add(spacer.slice(from, j));
+                }
+                cells.add(section);
+                addSection(section, page, index);
+                from = j + 1;
+            }
+            if (cells.isEmpty()) {
+                continue;
+            }
+            if (from < count) {
+                cells.add(spacer.slice(from, count));
+            }
+            root.removeCellsInner(i, i + 1);
+            root.addCellsInner(i, cells);
+            for (Cell newCell : cells) {
+                newCell.requestMeasureAndLayout();
+            }
+            i += cells.size() - 1;
+        }
+        requestLayout();
+    }
+
+    private InputStream contentStream;
+
+    /**
+     * read template from stream on work thread, the root will be set at first
+     * and it's children are attached one by one as soon as they have been parsed.
+     * callbacks of listener are called on UIThread.
+     */
+    public void setContentTemplate(final InputStream in, final TemplateFactory.OnTemplateStreamListener listener) {
+        cancelContentStream();
+        contentStream = in;
+        Parallel.execute(new Runnable() {
+            @Override
+            public void run() {
+                final InputStreamReader reader = new InputStreamReader(in, Charset.forName("UTF-8"));
+                final TemplateFactory.OnTemplateStreamListener callback = new TemplateFactory.OnTemplateStreamListener() {
+                    @Override
+                    public void onStart(final TemplateFactory.Template template) {
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (contentStream != in) return;
+                                setContentTemplate(template, false); // keep reading
+                                if (null != listener) {
+                                    listener.onStart(template);
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onCellLoaded(final TemplateFactory.Template template, final Cell cell, final CellData data) {
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (contentStream != in) return;
+                                try {
+                                    ((CellGroup) template.root).addCell(cell, cell.params());
+                                } catch (RuntimeException e) {
+                                    // the cell can't be added, the rest is dropped
+                                    cancelContentStream();
+                                    Log.e(TAG, "[setContentTemplate] attach cell failed ! " + e.getMessage());
+                                    if (null != listener) {
+                                        listener.onError(e);
+                                    }
+                                    return;
+                                }
+                                if (viewManager.adapter instanceof StyleAdapter) {
+                                    ((StyleAdapter) viewManager.adapter).getCellData().merge(data);
+                                }
+                                requestLayout();
+                                if (null != listener) {
+                                    listener.onCellLoaded(template, cell, data);
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onComplete(final TemplateFactory.Template template) {
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (contentStream != in) return;
+                                contentStream = null;
+                                if (null != listener) {
+                                    listener.onComplete(template);
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(final Exception e) {
+                        post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (contentStream != in) return; // canceled
+                                contentStream = null;
+                                Log.e(TAG, "[setContentTemplate] load template failed ! " + e.getMessage());
+                                if (null != listener) {
+                                    listener.onError(e);
+                                }
+                            }
+                        });
+                    }
+                };
+                // the parser is created on this thread
+                CellPool.attach(cellPool);
+                try {
+                    TemplateFactory.load(reader, callback);
+                } finally {
+                    CellPool.detach();
+                    closeQuietly(in);
+                    post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (contentStream == in) {
+                                contentStream = null; // ended without callback
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * stop reading, the rest of template will be dropped
+     */
+    private void cancelContentStream() {
+        if (null != contentStream) {
+            closeQuietly(contentStream);
+            contentStream = null;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * scale design values of content cells, {@link Attribute#fixedResolution()}
+     */
+    public void setContentScale(float scale) {
+        if (scale <= 0 || scale == director.getScale()) return;
+        director.setScale(scale);
+        requestLayout();
+    }
+
+    public float getContentScale() {
+        return director.getScale();
+    }
+
+    /**
+     * keep rects of cells in flat arrays, it's faster to scroll the content which has a large number of cells
+     */
+    public void setFlatGeometry(boolean is) {
+        director.setFlatGeometry(is);
+        requestLayout();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (contentResolution > 0) {
+            setContentScale(getResources().getDisplayMetrics().heightPixels * 1f / contentResolution);
+        }
+    }
+
     public void addCell(Cell cell) {
         if (!director.hasRoot()) return;
         if (director.getRoot() instanceof CellGroup) {
@@ -244,6 +1122,7 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         if (!director.hasRoot() || null == cell) {
             return;
         }
+        director.syncGeometry();
         final Cell rect = director.getRoot();
         int dx = rect.centerX() - cell.centerX();
         int dy = rect.centerY() - cell.centerY();
@@ -598,7 +1477,10 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     public void draw(final Canvas canvas) {
         focusOrder = -1;
         if (null != holderDrawable) {
-            for (Cell cell : viewManager.holderCells) {
+            final CellSet holderCells = viewManager.holderCells;
+            final int size = holderCells.size();
+            for (int i = 0; i < size; i++) {
+                final Cell cell = holderCells.keyAt(i);
                 cell.computeParentScroll();
                 final int l = cell.getLayoutX() + cell.getParentScrollX();
                 final int t = cell.getLayoutY() + cell.getParentScrollY();
@@ -674,6 +1556,7 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     public void onRefreshActiveCells() {
         viewManager.replaceAllHolder();
         viewManager.layoutAllContent();
+        checkAndLoadNextPage();
         // init focus
         if (null == focusManager.getFocus()) {
             focusManager.setFocus(findFirstFocusableCell((CellGroup) director.getRoot()));
@@ -683,13 +1566,69 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     @Override
     public void onVisibleChanged(Cell cell) {
         if (cell instanceof CellGroup) return; // don't care group
+        if (cell instanceof SpacerCell) {
+            if (cell.isVisible()) {
+                restoreSections((SpacerCell) cell);
+            }
+            return;
+        }
+        if (cell instanceof PlaceholderCell) {
+            if (cell.isVisible()) {
+                materialize((PlaceholderCell) cell);
+            }
+            return;
+        }
         viewManager.onVisibleChanged(cell);
     }
 
+    /**
+     * parse the sub tree of placeholder on background thread, and replace it on UIThread.
+     * it's tried again at the next time it's visible if parsing failed.
+     */
+    private void materialize(final PlaceholderCell placeholder) {
+        if (placeholder.materializing) return;
+        placeholder.materializing = true;
+        Parallel.execute(new Runnable() {
+            @Override
+            public void run() {
+                TemplateFactory.Template template = null;
+                CellPool.attach(cellPool);
+                try {
+                    template = TemplateFactory.materialize(placeholder);
+                } catch (Exception e) {
+                    Log.e(TAG, "[materialize] can't parse placeholder: " + placeholder.getId() + ", " + e.getMessage());
+                } finally {
+                    CellPool.detach();
+                }
+                final TemplateFactory.Template result = template;
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (null == result) {
+                            placeholder.materializing = false;
+                            return;
+                        }
+                        final CellGroup parent = placeholder.getParent();
+                        if (null == parent) {
+                            return; // placeholder has been removed
+                        }
+                        if (viewManager.adapter instanceof StyleAdapter) {
+                            ((StyleAdapter) viewManager.adapter).getCellData().merge(result.cellData);
+                        }
+                        parent.replaceCell(placeholder, result.root);
+                        requestLayout();
+                    }
+                });
+            }
+        });
+    }
+
     @Override
     public void onScrollComplete() {
         viewManager.replaceAllHolder();
         viewManager.layoutAllContent();
+        checkAndLoadNextPage();
+        checkAndEvictSections();
         // recycle should be in last
         viewManager.checkAndReleaseCache(false);
         viewManager.logInfo();
@@ -713,6 +1652,13 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         void onViewRecycled(Cell cell, View view);
     }
 
+    /**
+     * partial binding for the changed cell
+     */
+    public interface PayloadViewAdapter {
+        void onBindView(Cell cell, View view, Object payload);
+    }
+
     public interface OnCellSelectedChangeListener {
         void onSelectedChanged(Cell oldCell, View oldView, Cell newCell, View newView);
     }
@@ -724,8 +1670,10 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
     private final class ViewManager {
         private ViewAdapter adapter;
         private final SparseArray<ViewPool> poolMap = new SparseArray<>();
-        private final HashMap<Cell, View> activeCells = new HashMap<>();
-        private final Set<Cell> holderCells = new HashSet<>();
+        private final CellMap<View> activeCells = new CellMap<>(64);
+        private final CellSet holderCells = new CellSet(16);
+        private volatile int prewarmGeneration = 0; // views of old generation are dropped
+        private SharedViewPool sharedPool;
 
         void setAdapter(ViewAdapter adapter) {
             checkAndReleaseCache(true);
@@ -734,31 +1682,73 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
 
         private void checkAndReleaseCache(boolean force) {
             if (force) { // clear all
+                prewarmGeneration++;
                 removeAllViewsInLayout();
                 // clear state
-                final Collection<Cell> cells = activeCells.keySet();
-                for (Cell cell : cells) {
-                    cell.clearAllState();
+                final int count = activeCells.size();
+                for (int i = 0; i < count; i++) {
+                    activeCells.keyAt(i).clearAllState();
                 }
                 // clear reference
                 holderCells.clear();
                 activeCells.clear();
                 final int size = poolMap.size();
                 for (int i = 0; i < size; i++) {
-                    poolMap.valueAt(i).keepSize(0, null);
+                    poolMap.valueAt(i).keepSize(0, null == sharedPool ? null : moveToSharedPool(poolMap.keyAt(i)));
                 }
                 poolMap.clear();
             } else { // just remove extra holder and content view
-                final int size = poolMap.size();
-                for (int i = 0; i < size; i++) {
-                    poolMap.valueAt(i).keepSize(5, new Filter<View>() {
-                        @Override
-                        public boolean call(View view) {
-                            removeViewInLayout(view);
-                            return false;
+                updateCapacities();
+                trimPools(1f, true);
+            }
+        }
+
+        private static final int MAX_CAPACITY = 30;
+
+        // capacity of pool by style, it's the peak of visible views with decay
+        private final SparseIntArray capacities = new SparseIntArray();
+        private final SparseIntArray visibleCounts = new SparseIntArray();
+
+        /**
+         * the peak is kept when more views are visible, or decays a quarter every time
+         */
+        private void updateCapacities() {
+            visibleCounts.clear();
+            final int count = activeCells.size();
+            for (int i = 0; i < count; i++) {
+                final int type = adapter.getViewType(activeCells.keyAt(i));
+                visibleCounts.put(type, visibleCounts.get(type) + 1);
+            }
+            final int size = poolMap.size();
+            for (int i = 0; i < size; i++) {
+                final int type = poolMap.keyAt(i);
+                final int peak = capacities.get(type);
+                final int visible = Math.min(MAX_CAPACITY, visibleCounts.get(type));
+                capacities.put(type, Math.max(visible, peak - Math.max(1, peak / 4)));
+            }
+        }
+
+        /**
+         * remove the extra views from layout
+         *
+         * @param ratio keep 'capacity * ratio' views of every pool
+         * @param share move the removed views to shared pool, or drop them
+         */
+        void trimPools(float ratio, boolean share) {
+            final int size = poolMap.size();
+            for (int i = 0; i < size; i++) {
+                final int type = poolMap.keyAt(i);
+                final Filter<View> moveToSharedPool = share && null != sharedPool ? moveToSharedPool(type) : null;
+                poolMap.valueAt(i).keepSize((int) (capacities.get(type) * ratio), new Filter<View>() {
+                    @Override
+                    public boolean call(View view) {
+                        removeViewInLayout(view);
+                        if (null != moveToSharedPool) {
+                            moveToSharedPool.call(view);
                         }
-                    });
-                }
+                        return false;
+                    }
+                });
             }
         }
 
@@ -772,10 +1762,10 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
 
         Cell findCellByView(View view) {
             if (null != view) {
-                Collection<Map.Entry<Cell, View>> entrySet = activeCells.entrySet();
-                for (Map.Entry<Cell, View> entry : entrySet) {
-                    if (entry.getValue() == view) {
-                        return entry.getKey();
+                final int size = activeCells.size();
+                for (int i = 0; i < size; i++) {
+                    if (activeCells.valueAt(i) == view) {
+                        return activeCells.keyAt(i);
                     }
                 }
             }
@@ -785,11 +1775,18 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         void onVisibleChanged(final Cell cell) {
             final ViewPool pool = getViewPool(cell);
             if (cell.isVisible()) { // add active view
+                final View active = activeCells.get(cell);
+                if (cell.hasContent() && null != active) {
+                    // recycled item of grid, it's moved to new position
+                    bindContentToCell(cell, active);
+                    return;
+                }
                 final boolean useHolder = (flag & FLAG_MOVING_LONG_PRESS) != 0;
                 // always use holder, maybe scroll fast
-                final View cache = (!cell.isNoHolder() && useHolder) ? null : pool.obtain(cell, true);
+                final View cache = (!cell.isNoHolder() && useHolder) ? null : obtainView(cell, pool, true);
                 if (null != cache) {
-                    bindContentToCell(cell, cache);
+                    // the previous view of cell with the same data, eg: scroll back quickly
+                    bindContentToCell(cell, cache, !pool.isBound());
                 } else { // holder
                     cell.setHasContent(false);
                     activeCells.put(cell, null);
@@ -801,33 +1798,130 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
                 if (cell.hasContent()) {
                     cell.setHasContent(false);
                     if (null != v) {
-                        pool.recycle(v);
-                        adapter.onViewRecycled(cell, v);
+                        // it's recycled by pool when it's given to other cell
+                        pool.recycle(v, cell, getDataVersion(cell));
                     }
                 }
             }
         }
 
+        /**
+         * the cell has been removed from content
+         */
+        void removeCell(Cell cell) {
+            holderCells.remove(cell);
+            final int index = activeCells.indexOfKey(cell);
+            final View v = index >= 0 ? activeCells.valueAt(index) : null;
+            if (index >= 0) {
+                activeCells.removeAt(index);
+            }
+            if (cell.hasContent() && null != v) {
+                getViewPool(cell).recycle(v);
+                adapter.onViewRecycled(cell, v);
+            } else {
+                // holder or not active, the view cached for it is never used again
+                releaseCachedView(cell);
+            }
+            cell.clearAllState();
+        }
+
+        void rebindCell(Cell cell, Object payload) {
+            final View v = activeCells.get(cell);
+            if (!cell.hasContent() || null == v) {
+                releaseCachedView(cell);
+                return; // it will be bound when it's visible
+            }
+            if (null != payload && adapter instanceof PayloadViewAdapter) {
+                ((PayloadViewAdapter) adapter).onBindView(cell, v, payload);
+            } else {
+                adapter.onBindView(cell, v);
+            }
+        }
+
         private void replaceAllHolder() {
-            final Collection<Map.Entry<Cell, View>> entrySet = activeCells.entrySet();
-            for (Map.Entry<Cell, View> entry : entrySet) {
-                final Cell cell = entry.getKey();
+            final int size = activeCells.size();
+            for (int i = 0; i < size; i++) {
+                final Cell cell = activeCells.keyAt(i);
                 if (!cell.hasContent()) {
                     // create content
-                    View content = getViewPool(cell).obtain(cell, false);
+                    final ViewPool pool = getViewPool(cell);
+                    View content = obtainView(cell, pool, false);
+                    final boolean bound = null != content && pool.isBound();
                     if (null == content) {
                         content = createContent(cell);
                     }
-                    bindContentToCell(cell, content);
+                    bindContentToCell(cell, content, !bound);
                 }
             }
         }
 
+        /**
+         * the view is inflated by prewarm on work thread
+         */
+        void addPrewarmView(int generation, int styleId, View v) {
+            if (generation != prewarmGeneration || CellLayout.this == v.getParent()) return;
+            addViewInLayout(v, -1, generateDefaultLayoutParams(), true);
+            getViewPool(styleId).recycle(v);
+        }
+
+        /**
+         * the views have been detached from layout
+         */
+        private Filter<View> moveToSharedPool(final int styleId) {
+            final SharedViewPool pool = sharedPool;
+            return new Filter<View>() {
+                @Override
+                public boolean call(View view) {
+                    pool.put(styleId, view);
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * find the cache of view from own pool, then shared pool
+         */
+        private View obtainView(Cell cell, ViewPool pool, boolean force) {
+            View v = pool.obtain(cell, getDataVersion(cell), force);
+            if (null == v && null != sharedPool) {
+                v = sharedPool.obtain(adapter.getViewType(cell), cell.width(), cell.height(), force);
+                if (null != v) {
+                    addViewInLayout(v, -1, generateDefaultLayoutParams(), true);
+                }
+            }
+            return v;
+        }
+
+        /**
+         * -1 if the data of cell is unknown, the view is always bound again.
+         * item of recycling grid is bound by position, it's changed without changing data.
+         */
+        private int getDataVersion(Cell cell) {
+            if (!(adapter instanceof StyleAdapter) || cell.params() instanceof RecyclingGridGroup.Params) {
+                return -1;
+            }
+            return ((StyleAdapter) adapter).getCellData().getVersion(cell.getId());
+        }
+
+        /**
+         * the view in pool which is still bound to the cell
+         */
+        private void releaseCachedView(Cell cell) {
+            if (null == adapter || null == cell.params()) return;
+            final ViewPool pool = poolMap.get(adapter.getViewType(cell));
+            if (null != pool) {
+                pool.release(cell);
+            }
+        }
+
         private ViewPool getViewPool(Cell cell) {
-            final int poolId = adapter.getViewType(cell);
+            return getViewPool(adapter.getViewType(cell));
+        }
+
+        private ViewPool getViewPool(int poolId) {
             ViewPool pool = poolMap.get(poolId);
             if (null == pool) {
-                pool = new ViewPool();
+                pool = new ViewPool(adapter);
                 poolMap.put(poolId, pool);
             }
             return pool;
@@ -845,11 +1939,17 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         }
 
         private void bindContentToCell(Cell cell, View v) {
+            bindContentToCell(cell, v, true);
+        }
+
+        private void bindContentToCell(Cell cell, View v, boolean bind) {
             if (v.getMeasuredWidth() != cell.width() || v.getMeasuredHeight() != cell.height()) {
                 v.measure(MeasureSpec.makeMeasureSpec(cell.width(), MeasureSpec.EXACTLY),
                         MeasureSpec.makeMeasureSpec(cell.height(), MeasureSpec.EXACTLY));
             }
-            adapter.onBindView(cell, v);
+            if (bind) {
+                adapter.onBindView(cell, v);
+            }
             cell.setHasContent(true);
             cell.setFocusable(v.isFocusable());
             activeCells.put(cell, v);
@@ -862,10 +1962,10 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         }
 
         private void layoutAllContent() {
-            final Collection<Map.Entry<Cell, View>> entrySet = activeCells.entrySet();
-            for (Map.Entry<Cell, View> entry : entrySet) {
-                final Cell cell = entry.getKey();
-                final View v = entry.getValue();
+            final int size = activeCells.size();
+            for (int i = 0; i < size; i++) {
+                final Cell cell = activeCells.keyAt(i);
+                final View v = activeCells.valueAt(i);
                 if (v.getLeft() != cell.getLeft() || v.getTop() != cell.getTop()
                         || v.getRight() != cell.getRight() || v.getBottom() != cell.getBottom()) {
                     v.layout(cell.getLeft(), cell.getTop(), cell.getRight(), cell.getBottom());
@@ -948,6 +2048,7 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
         }
 
         private void checkAndMoveFocusVisible(Cell cell) {
+            director.syncGeometry(); // the cell may be out of screen
             final Rect area = new Rect(director.getRoot());
             area.inset(area.width() / 6, area.height() / 6);
             int dx = 0, dy = 0;
@@ -978,6 +2079,7 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
 
         boolean moveFocusBy(final Cell from, final int distance, final int dir) {
             if (null == from || dir < 0) return false;
+            director.syncGeometry();
             final CellGroup root = (CellGroup) director.getRoot();
             final int maxWidth = root.getContentWidth();
             final int maxHeight = root.getContentHeight();
@@ -1008,6 +2110,7 @@ public class CellLayout extends ViewGroup implements CellDirector.LifeCycleCallb
 
                 @Override
                 public Cell call() {
+                    director.syncGeometry();
                     root.foreachAllCells(false, new Filter<Cell>() {
                         @Override
                         public boolean call(Cell cell) {
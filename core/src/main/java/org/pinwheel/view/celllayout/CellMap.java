@@ -0,0 +1,202 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Map of cell by id without boxing, the entries are kept in dense arrays and found by an open addressing table.
+ * Iterate it like SparseArray: {@link #keyAt(int)} and {@link #valueAt(int)} in [0, size),
+ * removing swaps the last entry to the removed index, so iterate backward when removing.
+ *
+ * @author dnwang
+ * @version 2018/12/31,10:20
+ */
+class CellMap<V> {
+
+    private static final int EMPTY = 0;
+
+    private int[] ids;
+    private Cell[] cells;
+    private Object[] values;
+    private int[] table; // index of entry + 1, EMPTY if the slot is free
+    private int size = 0;
+
+    CellMap() {
+        this(8);
+    }
+
+    CellMap(int capacity) {
+        capacity = Math.max(4, capacity);
+        ids = new int[capacity];
+        cells = new Cell[capacity];
+        values = new Object[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // load factor is less than 0.5
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(int id) {
+        final int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return 0 == size;
+    }
+
+    public final Cell keyAt(int index) {
+        return cells[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public final V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    final void setValueAt(int index, V value) {
+        values[index] = value;
+    }
+
+    /**
+     * @return index of entry, -1 if not found
+     */
+    final int indexOfId(int id) {
+        final int[] table = this.table;
+        final int mask = table.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (EMPTY == entry) {
+                return -1;
+            } else if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public final int indexOfKey(Cell cell) {
+        return null != cell ? indexOfId(cell.getId()) : -1;
+    }
+
+    public final boolean containsKey(Cell cell) {
+        return indexOfKey(cell) >= 0;
+    }
+
+    public final V get(Cell cell) {
+        final int index = indexOfKey(cell);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    /**
+     * @return index of entry
+     */
+    public final int put(Cell cell, V value) {
+        final int id = cell.getId();
+        int index = indexOfId(id);
+        if (index >= 0) {
+            cells[index] = cell;
+            values[index] = value;
+            return index;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        index = size++;
+        ids[index] = id;
+        cells[index] = cell;
+        values[index] = value;
+        insert(id, index);
+        return index;
+    }
+
+    public final V remove(Cell cell) {
+        final int index = indexOfKey(cell);
+        if (index < 0) {
+            return null;
+        }
+        final V value = valueAt(index);
+        removeAt(index);
+        return value;
+    }
+
+    public final void removeAt(int index) {
+        delete(ids[index]);
+        final int last = --size;
+        if (index != last) {
+            // move the last entry to the removed index
+            final int id = ids[last];
+            ids[index] = id;
+            cells[index] = cells[last];
+            values[index] = values[last];
+            table[findSlot(id)] = index + 1;
+        }
+        cells[last] = null;
+        values[last] = null;
+    }
+
+    public final void clear() {
+        if (0 == size) return;
+        Arrays.fill(cells, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    private int findSlot(int id) {
+        final int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (ids[table[slot] - 1] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int id, int index) {
+        final int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (EMPTY != table[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /**
+     * linear probing, shift the following entries back instead of tombstone
+     */
+    private void delete(int id) {
+        final int[] table = this.table;
+        final int mask = table.length - 1;
+        int hole = findSlot(id);
+        table[hole] = EMPTY;
+        for (int slot = (hole + 1) & mask; EMPTY != table[slot]; slot = (slot + 1) & mask) {
+            final int home = hash(ids[table[slot] - 1]) & mask;
+            // move it if the hole is between it's home and current slot
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                table[slot] = EMPTY;
+                hole = slot;
+            }
+        }
+    }
+
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        values = Arrays.copyOf(values, capacity);
+        table = new int[tableSizeFor(capacity)];
+        for (int i = 0; i < size; i++) {
+            insert(ids[i], i);
+        }
+    }
+
+}
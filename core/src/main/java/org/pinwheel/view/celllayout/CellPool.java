@@ -0,0 +1,104 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Recycle the detached cells for parser, just the types which are created by template are recycled.
+ * Every CellLayout has it's own pool, it's attached to the thread which loads template for the layout,
+ * and the parser created on this thread takes cells from it. The cells get new ids when they are obtained.
+ *
+ * @author dnwang
+ * @version 2018/12/30,11:05
+ */
+final class CellPool {
+
+    private static final int MAX_SIZE = 256; // every type
+
+    private static final ThreadLocal<CellPool> CURRENT = new ThreadLocal<>();
+
+    private final HashMap<Class, List<Cell>> pools = new HashMap<>(4);
+
+    CellPool() {
+        pools.put(Cell.class, new ArrayList<Cell>());
+        pools.put(LinearGroup.class, new ArrayList<Cell>());
+        pools.put(GridGroup.class, new ArrayList<Cell>());
+    }
+
+    /**
+     * the parsers created on current thread take cells from pool, until {@link #detach()}
+     */
+    static void attach(CellPool pool) {
+        CURRENT.set(pool);
+    }
+
+    static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return null if no pool is attached to current thread
+     */
+    static CellPool current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return null if there is no recycled cell
+     */
+    <T extends Cell> T obtain(Class<T> type, int id) {
+        final Cell cell;
+        synchronized (pools) {
+            final List<Cell> pool = pools.get(type);
+            final int size = null != pool ? pool.size() : 0;
+            if (0 == size) {
+                return null;
+            }
+            cell = pool.remove(size - 1);
+        }
+        cell.setId(id);
+        return type.cast(cell);
+    }
+
+    /**
+     * recycle the whole sub tree, it must be removed from content and has no view and data
+     */
+    void recycle(Cell root) {
+        final List<Cell> cells = new ArrayList<>();
+        collect(root, cells);
+        synchronized (pools) {
+            for (Cell cell : cells) {
+                final List<Cell> pool = pools.get(cell.getClass());
+                cell.reset();
+                if (null != pool && pool.size() < MAX_SIZE) {
+                    pool.add(cell);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (pools) {
+            for (List<Cell> pool : pools.values()) {
+                pool.clear();
+            }
+        }
+    }
+
+    private static void collect(Cell cell, List<Cell> cells) {
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                collect(group.getCellAt(i), cells);
+            }
+        }
+        cells.add(cell);
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.pinwheel.view.celllayout;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Set of cell by id, iterate it by {@link #keyAt(int)} in [0, size).
+ *
+ * @author dnwang
+ * @version 2018/12/31,10:45
+ */
+final class CellSet extends CellMap<Object> {
+
+    CellSet() {
+        super();
+    }
+
+    CellSet(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * @return false if the cell has been in set
+     */
+    boolean add(Cell cell) {
+        if (containsKey(cell)) {
+            return false;
+        }
+        put(cell, null);
+        return true;
+    }
+
+}
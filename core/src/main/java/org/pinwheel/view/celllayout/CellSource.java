@@ -0,0 +1,23 @@
+package org.pinwheel.view.celllayout;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Pages of content, the next page is requested when the end of content is close to the screen.
+ *
+ * @author dnwang
+ * @version 2018/12/27,11:20
+ */
+public interface CellSource {
+
+    /**
+     * called on work thread, the children of page root will be appended to the end of content.
+     *
+     * @param page start with 0
+     * @return null if there is no more page
+     */
+    TemplateFactory.Template loadPage(int page) throws Exception;
+
+}
@@ -0,0 +1,184 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Rects of all cells in primitive arrays by pre-order, the sub tree of cell is the range [index + 1, end).
+ * Scroll offset and visible check are linear loops over arrays, only the rects of visible cells are
+ * written back to cells immediately, others are written back by {@link #sync()}.
+ * It's built and updated on sync thread, {@link #sync()} is also called on UIThread before reading rects,
+ * so the writing methods are synchronized, the stale flags and rects are never read half updated.
+ *
+ * @author dnwang
+ * @version 2018/12/29,15:20
+ */
+final class FlatGeometry {
+
+    private static final int FLAG_STALE = 1; // rect of cell is older than arrays
+    private static final int FLAG_FAR = FLAG_STALE << 1; // placeholder and spacer are checked by far area
+    private static final int FLAG_ITEM = FLAG_FAR << 1; // item of recycling grid, maybe parked
+    private static final int FLAG_RECYCLING = FLAG_ITEM << 1;
+    private static final int FLAG_GRID = FLAG_RECYCLING << 1; // the visible slots are computed with it's rect
+
+    private Cell[] cells = new Cell[0];
+    private int[] rects = new int[0]; // left, top, right, bottom
+    private int[] ends = new int[0];
+    private int[] flags = new int[0];
+    private int size = 0;
+    private boolean hasStale = false;
+
+    synchronized void build(Cell root) {
+        size = 0;
+        hasStale = false;
+        if (null != root) {
+            add(root);
+        }
+        // release the cells of old tree
+        Arrays.fill(cells, size, cells.length, null);
+    }
+
+    private void add(Cell cell) {
+        if (size == cells.length) {
+            final int capacity = Math.max(16, size * 2);
+            cells = Arrays.copyOf(cells, capacity);
+            rects = Arrays.copyOf(rects, capacity * 4);
+            ends = Arrays.copyOf(ends, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        final int index = size++;
+        cells[index] = cell;
+        cell.flatIndex = index;
+        final int r = index * 4;
+        rects[r] = cell.getLeft();
+        rects[r + 1] = cell.getTop();
+        rects[r + 2] = cell.getRight();
+        rects[r + 3] = cell.getBottom();
+        int flag = 0;
+        if (cell instanceof PlaceholderCell || cell instanceof SpacerCell) {
+            flag |= FLAG_FAR;
+        } else if (cell.getParent() instanceof RecyclingGridGroup) {
+            flag |= FLAG_ITEM;
+        } else if (cell instanceof RecyclingGridGroup) {
+            flag |= FLAG_RECYCLING;
+        }
+        if (cell instanceof GridGroup) {
+            flag |= FLAG_GRID;
+        }
+        flags[index] = flag;
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int count = group.getCellCount();
+            for (int i = 0; i < count; i++) {
+                add(group.getCellAt(i));
+            }
+        }
+        ends[index] = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * -1 if the cell has been added after build
+     */
+    int indexOf(Cell cell) {
+        final int index = null != cell ? cell.flatIndex : -1;
+        return index >= 0 && index < size && cells[index] == cell ? index : -1;
+    }
+
+    int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * move the cells in [from, to) and check their visible state.
+     *
+     * @param changed the cells whose visible state is changed
+     * @param grids   the recycling grids in range
+     */
+    synchronized void update(int from, int to, int dx, int dy, Rect area, Rect farArea,
+                             CellSet changed, List<RecyclingGridGroup> grids) {
+        final int al = area.getLeft(), at = area.getTop(), ar = area.getRight(), ab = area.getBottom();
+        final int fl = farArea.getLeft(), ft = farArea.getTop(), fr = farArea.getRight(), fb = farArea.getBottom();
+        final int[] rects = this.rects, flags = this.flags;
+        for (int i = from; i < to; i++) {
+            final int r = i * 4;
+            final int left = rects[r] += dx, top = rects[r + 1] += dy;
+            final int right = rects[r + 2] += dx, bottom = rects[r + 3] += dy;
+            final int flag = flags[i];
+            boolean visible;
+            if ((flag & FLAG_FAR) != 0) {
+                visible = fl < right && left < fr && ft < bottom && top < fb;
+            } else {
+                visible = al < right && left < ar && at < bottom && top < ab;
+            }
+            final Cell cell = cells[i];
+            if (visible && (flag & FLAG_ITEM) != 0) {
+                visible = !RecyclingGridGroup.isParked(cell);
+            }
+            if (visible != cell.isVisible()) {
+                cell.setVisible(visible);
+                changed.add(cell);
+            }
+            if (visible || (flag & FLAG_RECYCLING) != 0) {
+                cell.set(left, top, right, bottom);
+                flags[i] = flag & ~FLAG_STALE;
+            } else if (0 != dx || 0 != dy) {
+                flags[i] = flag | FLAG_STALE;
+                hasStale = true;
+            }
+            if ((flag & FLAG_RECYCLING) != 0) {
+                grids.add((RecyclingGridGroup) cell);
+            }
+            if ((flag & FLAG_GRID) != 0) {
+                if (visible) {
+                    ((GridGroup) cell).computeVisibleSlots(area);
+                } else {
+                    ((GridGroup) cell).clearVisibleSlots();
+                }
+            }
+        }
+    }
+
+    /**
+     * the rect has been changed by cell self, eg: recycled item of grid
+     */
+    synchronized void pull(Cell cell) {
+        final int index = indexOf(cell);
+        if (index < 0) return;
+        final int r = index * 4;
+        rects[r] = cell.getLeft();
+        rects[r + 1] = cell.getTop();
+        rects[r + 2] = cell.getRight();
+        rects[r + 3] = cell.getBottom();
+        flags[index] &= ~FLAG_STALE;
+    }
+
+    /**
+     * write back the rects of all stale cells
+     */
+    synchronized void sync() {
+        if (hasStale) {
+            sync(0, size);
+            hasStale = false;
+        }
+    }
+
+    synchronized void sync(int from, int to) {
+        final int[] rects = this.rects, flags = this.flags;
+        for (int i = from; i < to; i++) {
+            if ((flags[i] & FLAG_STALE) != 0) {
+                final int r = i * 4;
+                cells[i].set(rects[r], rects[r + 1], rects[r + 2], rects[r + 3]);
+                flags[i] &= ~FLAG_STALE;
+            }
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ package org.pinwheel.view.celllayout;
  *
  * @author dnwang
  * @version 2018/12/10,15:02
+ * @deprecated use {@link RecyclingGridGroup}, the items are created only in visible area
  */
 @Deprecated
 public final class GridCell extends LinearGroup {
@@ -16,6 +16,13 @@ public class GridGroup extends CellGroup {
     @Attribute
     private int row, column;
 
+    private volatile Slots slots; // it's replaced by layout on UIThread, and read by sync thread
+    // computed and read on sync thread only
+    private final CellSet visibleCells = new CellSet();
+    private int firstVisibleColumn, firstVisibleRow, lastVisibleColumn, lastVisibleRow;
+    private boolean hasVisibleSlots = false;
+    private boolean checkRanges = false; // the child under others has no slot, check the range of params instead
+
     GridGroup() {
         this(1, 1);
     }
@@ -27,32 +34,59 @@ public class GridGroup extends CellGroup {
         this.divider = 0;
     }
 
+    GridGroup(int id, int row, int column) {
+        super(id);
+        this.row = Math.max(1, row);
+        this.column = Math.max(1, column);
+        this.divider = 0;
+    }
+
     public void setDivider(int divider) {
         this.divider = divider;
+        clearStructureHash(this);
     }
 
     public int getDivider() {
         return divider;
     }
 
+    int getRow() {
+        return row;
+    }
+
+    int getColumn() {
+        return column;
+    }
+
     @Override
     public CellGroup.Params getDefaultParams() {
         return new GridGroup.Params();
     }
 
+    @Override
+    void reset() {
+        super.reset();
+        divider = 0;
+        row = column = 1;
+        slots = null;
+        visibleCells.clear();
+        hasVisibleSlots = false;
+    }
+
     @Override
     protected void measure(final int width, final int height) {
         super.measure(width, height);
-        final int bW = (int) ((width - paddingLeft - paddingRight - (column - 1) * divider) * 1f / column);
-        final int bH = (int) ((height - paddingTop - paddingBottom - (row - 1) * divider) * 1f / row);
+        final int divider = scaled(this.divider);
+        final int bW = (int) ((width - scaled(paddingLeft) - scaled(paddingRight) - (column - 1) * divider) * 1f / column);
+        final int bH = (int) ((height - scaled(paddingTop) - scaled(paddingBottom) - (row - 1) * divider) * 1f / row);
         final int size = getCellCount();
         for (int i = 0; i < size; i++) {
             Cell cell = getCellAt(i);
             if (cell.isMeasured()) continue;
-            Params p = (GridGroup.Params) cell.getParams();
-            int w = bW * p.columnCount + (p.columnCount - 1) * divider - (p.marginLeft + p.marginRight);
-            int h = bH * p.rowCount + (p.rowCount - 1) * divider - (p.marginTop + p.marginBottom);
-            cell.measure(w, h);
+            Params p = (GridGroup.Params) cell.params();
+            int w = bW * p.columnCount + (p.columnCount - 1) * divider - (scaled(p.marginLeft) + scaled(p.marginRight));
+            int h = bH * p.rowCount + (p.rowCount - 1) * divider - (scaled(p.marginTop) + scaled(p.marginBottom));
+            MeasureCache.measure(cell, w, h);
         }
     }
 
@@ -62,19 +96,154 @@ public class GridGroup extends CellGroup {
         // layout child with scroll offset
         scrollX += getScrollX();
         scrollY += getScrollY();
-        final int bW = (int) ((width() - paddingLeft - paddingRight - (column - 1) * divider) * 1f / column);
-        final int bH = (int) ((height() - paddingTop - paddingBottom - (row - 1) * divider) * 1f / row);
+        final int divider = scaled(this.divider);
+        final int paddingLeft = scaled(this.paddingLeft), paddingTop = scaled(this.paddingTop);
+        final int bW = (int) ((width() - paddingLeft - scaled(paddingRight) - (column - 1) * divider) * 1f / column);
+        final int bH = (int) ((height() - paddingTop - scaled(paddingBottom) - (row - 1) * divider) * 1f / row);
+        final Slots slots = new Slots(row, column, bW, bH, divider);
         final int size = getCellCount();
         for (int i = 0; i < size; i++) {
             Cell cell = getCellAt(i);
+            Params p = (GridGroup.Params) cell.params();
+            slots.occupy(cell, p);
             if (cell.isLayout()) continue;
-            Params p = (GridGroup.Params) cell.getParams();
-            int l = x + paddingLeft + p.marginLeft;
+            int l = x + paddingLeft + scaled(p.marginLeft);
             l += p.x * (divider + bW);
-            int t = y + paddingTop + p.marginTop;
+            int t = y + paddingTop + scaled(p.marginTop);
             t += p.y * (divider + bH);
             cell.layout(l, t, scrollX, scrollY);
         }
+        this.slots = slots;
+    }
+
+    /**
+     * the child is found by the slot of point directly,
+     * it's the first child which contains point like {@link CellGroup#findCellByPosition(int, int)}
+     */
+    @Override
+    Cell findCellByPosition(int x, int y) {
+        final Slots slots = this.slots;
+        if (null == slots || !slots.isValid()) {
+            return super.findCellByPosition(x, y);
+        }
+        final int index = slots.indexOf(x - getSlotsLeft(), y - getSlotsTop());
+        if (index < 0) {
+            return null;
+        }
+        final Cell cell = slots.cells[index];
+        if (cell instanceof CellGroup) {
+            return ((CellGroup) cell).findCellByPosition(x, y);
+        } else if (null == cell || cell.contains(x, y)) {
+            return cell;
+        }
+        // in the margin of slot, or under the other overlapped child
+        return super.findCellByPosition(x, y);
+    }
+
+    /**
+     * collect the children in the slots of area, it's called on sync thread before the children are checked.
+     * only the visible slots are walked, the children are checked by the table instead of rects.
+     */
+    void computeVisibleSlots(Rect area) {
+        visibleCells.clear();
+        final Slots slots = this.slots;
+        hasVisibleSlots = null != slots && slots.isValid();
+        if (!hasVisibleSlots) return;
+        final int left = getSlotsLeft(), top = getSlotsTop();
+        final int stepX = slots.blockWidth + slots.divider, stepY = slots.blockHeight + slots.divider;
+        firstVisibleColumn = Math.max(0, floorDiv(area.getLeft() - left, stepX));
+        lastVisibleColumn = Math.min(slots.column - 1, floorDiv(area.getRight() - 1 - left, stepX));
+        firstVisibleRow = Math.max(0, floorDiv(area.getTop() - top, stepY));
+        lastVisibleRow = Math.min(slots.row - 1, floorDiv(area.getBottom() - 1 - top, stepY));
+        checkRanges = slots.overlapped;
+        if (checkRanges) return;
+        for (int r = firstVisibleRow; r <= lastVisibleRow; r++) {
+            for (int c = firstVisibleColumn; c <= lastVisibleColumn; c++) {
+                final Cell cell = slots.cells[r * slots.column + c];
+                if (null != cell) {
+                    visibleCells.add(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * the grid is out of area, none of the slots is visible
+     */
+    void clearVisibleSlots() {
+        visibleCells.clear();
+        hasVisibleSlots = false;
+    }
+
+    boolean hasVisibleSlots() {
+        return hasVisibleSlots;
+    }
+
+    /**
+     * whether the slots of child are in the range of {@link #computeVisibleSlots(Rect)}
+     */
+    boolean isInVisibleSlots(Cell cell) {
+        if (!checkRanges) {
+            return visibleCells.containsKey(cell);
+        }
+        final Params p = (GridGroup.Params) cell.params();
+        return p.x <= lastVisibleColumn && p.x + Math.max(1, p.columnCount) - 1 >= firstVisibleColumn
+                && p.y <= lastVisibleRow && p.y + Math.max(1, p.rowCount) - 1 >= firstVisibleRow;
+    }
+
+    private int getSlotsLeft() {
+        return getLeft() + scaled(paddingLeft) + getScrollX();
+    }
+
+    private int getSlotsTop() {
+        return getTop() + scaled(paddingTop) + getScrollY();
+    }
+
+    /**
+     * occupancy table of children, index is 'y * column + x', the first child keeps the slot if they overlap.
+     * it isn't changed after layout, so the sync thread reads it without lock.
+     */
+    private static final class Slots {
+        final int row, column;
+        final int blockWidth, blockHeight, divider; // pixel
+        final Cell[] cells;
+        boolean overlapped = false;
+
+        Slots(int row, int column, int blockWidth, int blockHeight, int divider) {
+            this.row = row;
+            this.column = column;
+            this.blockWidth = blockWidth;
+            this.blockHeight = blockHeight;
+            this.divider = divider;
+            this.cells = new Cell[row * column];
+        }
+
+        boolean isValid() {
+            return blockWidth + divider > 0 && blockHeight + divider > 0;
+        }
+
+        void occupy(Cell cell, Params p) {
+            final int right = Math.min(column, p.x + Math.max(1, p.columnCount));
+            final int bottom = Math.min(row, p.y + Math.max(1, p.rowCount));
+            for (int r = Math.max(0, p.y); r < bottom; r++) {
+                for (int c = Math.max(0, p.x); c < right; c++) {
+                    final int index = r * column + c;
+                    if (null == cells[index]) {
+                        cells[index] = cell;
+                    } else {
+                        overlapped = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return -1 if the offset from the first slot is out of grid
+         */
+        int indexOf(int dx, int dy) {
+            final int c = floorDiv(dx, blockWidth + divider), r = floorDiv(dy, blockHeight + divider);
+            return c < 0 || c >= column || r < 0 || r >= row ? -1 : r * column + c;
+        }
     }
 
     public static class Params extends CellGroup.Params {
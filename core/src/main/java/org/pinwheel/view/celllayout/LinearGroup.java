@@ -2,6 +2,10 @@ package org.pinwheel.view.celllayout;
 
 import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import static org.pinwheel.view.celllayout.CellLayout.BORDER_STOKE_WIDTH;
 import static org.pinwheel.view.celllayout.CellLayout.SCALE_MAX;
 import static org.pinwheel.view.celllayout.CellLayout.SCALE_MIN;
@@ -25,6 +29,8 @@ public class LinearGroup extends CellGroup {
     @Attribute
     private int orientation;
 
+    private boolean parallel = false; // measure and layout children on worker threads
+
     LinearGroup() {
         this(VERTICAL);
     }
@@ -35,8 +41,15 @@ public class LinearGroup extends CellGroup {
         this.divider = 0;
     }
 
+    LinearGroup(int id, int orientation) {
+        super(id);
+        this.orientation = orientation;
+        this.divider = 0;
+    }
+
     public void setDivider(int divider) {
         this.divider = divider;
+        clearStructureHash(this);
     }
 
     public int getDivider() {
@@ -45,17 +58,35 @@ public class LinearGroup extends CellGroup {
 
     public void setOrientation(int orientation) {
         this.orientation = orientation;
+        clearStructureHash(this);
     }
 
     public int getOrientation() {
         return orientation;
     }
 
+    /**
+     * just for root of large tree, the children are independent except the offset
+     */
+    final void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     public CellGroup.Params getDefaultParams() {
         return new LinearGroup.Params();
     }
 
+    @Override
+    void reset() {
+        super.reset();
+        divider = 0;
+        orientation = VERTICAL;
+        parallel = false;
+        leftScaleExpand = topScaleExpand = rightScaleExpand = bottomScaleExpand = 0;
+        contentWidth = contentHeight = 0;
+    }
+
     @Override
     public void addCell(Cell cell, CellGroup.Params p) {
         if (cell instanceof LinearGroup &&
@@ -70,13 +101,13 @@ public class LinearGroup extends CellGroup {
         if (cell instanceof LinearGroup && ((LinearGroup) cell).getOrientation() == orientation) {
             // unboxing
             CellGroup group = (CellGroup) cell;
-            int size = group.getCellCount();
-            while (size > 0) {
-                Cell tmp = group.getCellAt(0);
-                tmp.removeFromParent();
-                addCellInner(tmp, tmp.getParams());
-                size--;
+            final int size = group.getCellCount();
+            final List<Cell> cells = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                cells.add(group.getCellAt(i));
             }
+            group.removeCellsInner(0, size);
+            addCellsInner(getCellCount(), cells);
             requestMeasureAndLayout();
         } else {
             super.merge(cell);
@@ -87,24 +118,68 @@ public class LinearGroup extends CellGroup {
     protected void measure(final int width, final int height) {
         super.measure(width, height);
         final int size = getCellCount();
+        final List<Callable<Cell>> tasks = parallel ? new ArrayList<Callable<Cell>>(size) : null;
         for (int i = 0; i < size; i++) {
             final Cell cell = getCellAt(i);
             if (cell.isMeasured()) continue;
-            CellGroup.Params p = cell.getParams();
+            CellGroup.Params p = cell.params();
+            final int w, h;
             if (HORIZONTAL == orientation) {
                 if (p.width <= 0) {
                     Log.w(CellLayout.TAG, "[LinearGroup.measure]: cell have no 'width' params in linearGroup with 'HORIZONTAL', the cell will not visible !");
                 }
-                int h = height - paddingTop - paddingBottom - p.marginTop - p.marginBottom;
-                cell.measure(p.width, h);
+                w = scaled(p.width);
+                h = height - scaled(paddingTop) - scaled(paddingBottom) - scaled(p.marginTop) - scaled(p.marginBottom);
             } else {
                 if (p.height <= 0) {
                     Log.w(CellLayout.TAG, "[LinearGroup.measure]: cell have no 'height' params in linearGroup with 'VERTICAL', the cell will not visible !");
                 }
-                int w = width - paddingLeft - paddingRight - p.marginLeft - p.marginRight;
-                cell.measure(w, p.height);
+                w = width - scaled(paddingLeft) - scaled(paddingRight) - scaled(p.marginLeft) - scaled(p.marginRight);
+                h = scaled(p.height);
+            }
+            if (null != tasks && isParallel(cell)) {
+                tasks.add(new Callable<Cell>() {
+                    @Override
+                    public Cell call() {
+                        MeasureCache.measure(cell, w, h);
+                        return cell;
+                    }
+                });
+            } else {
+                MeasureCache.measure(cell, w, h);
+                measureScaleExpand(i, cell);
+            }
+        }
+        if (null != tasks && !tasks.isEmpty()) {
+            for (Cell cell : invokeAll(tasks)) {
+                measureScaleExpand(cell.getIndexInParent(), cell);
             }
-            measureScaleExpand(i, cell);
+        }
+        measureContent();
+    }
+
+    /**
+     * the groups of library only, custom cell may not be thread safe
+     */
+    private static boolean isParallel(Cell cell) {
+        return cell instanceof CellGroup && MeasureCache.isCacheable(cell);
+    }
+
+    private static List<Cell> invokeAll(List<Callable<Cell>> tasks) {
+        try {
+            return Parallel.invokeLayout(tasks);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    void onMeasureRestored() {
+        final int size = getCellCount();
+        for (int i = 0; i < size; i++) {
+            measureScaleExpand(i, getCellAt(i));
         }
         measureContent();
     }
@@ -115,6 +190,8 @@ public class LinearGroup extends CellGroup {
         // layout child with scroll offset
         scrollX += getScrollX();
         scrollY += getScrollY();
+        final int paddingLeft = scaled(this.paddingLeft), paddingTop = scaled(this.paddingTop);
+        final int divider = scaled(this.divider);
         int tmp;
         if (HORIZONTAL == orientation) {
             tmp = x + paddingLeft;
@@ -122,25 +199,45 @@ public class LinearGroup extends CellGroup {
             tmp = y + paddingTop;
         }
         final int size = getCellCount();
+        // offsets are summed in order, the children are layout on worker threads
+        final List<Callable<Cell>> tasks = parallel ? new ArrayList<Callable<Cell>>(size) : null;
         for (int i = 0; i < size; i++) {
             Cell cell = getCellAt(i);
-            CellGroup.Params p = cell.getParams();
+            CellGroup.Params p = cell.params();
             if (HORIZONTAL == orientation) {
                 tmp += 0 == i ? 0 : divider;
-                tmp += p.marginLeft;
+                tmp += scaled(p.marginLeft);
                 if (!cell.isLayout()) {
-                    cell.layout(tmp, y + paddingTop + p.marginTop, scrollX, scrollY);
+                    layoutChild(tasks, cell, tmp, y + paddingTop + scaled(p.marginTop), scrollX, scrollY);
                 }
-                tmp += (cell.width() + p.marginRight);
+                tmp += (cell.width() + scaled(p.marginRight));
             } else {
                 tmp += 0 == i ? 0 : divider;
-                tmp += p.marginTop;
+                tmp += scaled(p.marginTop);
                 if (!cell.isLayout()) {
-                    cell.layout(x + paddingLeft + p.marginLeft, tmp, scrollX, scrollY);
+                    layoutChild(tasks, cell, x + paddingLeft + scaled(p.marginLeft), tmp, scrollX, scrollY);
                 }
-                tmp += (cell.height() + p.marginBottom);
+                tmp += (cell.height() + scaled(p.marginBottom));
             }
         }
+        if (null != tasks && !tasks.isEmpty()) {
+            invokeAll(tasks);
+        }
+    }
+
+    private static void layoutChild(List<Callable<Cell>> tasks, final Cell cell,
+                                    final int x, final int y, final int scrollX, final int scrollY) {
+        if (null != tasks && isParallel(cell)) {
+            tasks.add(new Callable<Cell>() {
+                @Override
+                public Cell call() {
+                    cell.layout(x, y, scrollX, scrollY);
+                    return cell;
+                }
+            });
+        } else {
+            cell.layout(x, y, scrollX, scrollY);
+        }
     }
 
     private static final float D_SCALE = SCALE_MAX - SCALE_MIN;
@@ -188,14 +285,15 @@ public class LinearGroup extends CellGroup {
             b = getBottom();
         }
         return new android.graphics.Rect(
-                l + Math.min(paddingLeft - leftScaleExpand, 0),
-                t + Math.min(paddingTop - topScaleExpand, 0),
-                r - Math.min(paddingRight - rightScaleExpand, 0),
-                b - Math.min(paddingBottom - bottomScaleExpand, 0));
+                l + Math.min(scaled(paddingLeft) - leftScaleExpand, 0),
+                t + Math.min(scaled(paddingTop) - topScaleExpand, 0),
+                r - Math.min(scaled(paddingRight) - rightScaleExpand, 0),
+                b - Math.min(scaled(paddingBottom) - bottomScaleExpand, 0));
     }
 
     @Override
     public void scrollTo(int x, int y) {
+        final int contentWidth = getContentWidth(), contentHeight = getContentHeight();
         super.scrollTo(contentWidth < width() ? 0 : Math.max(width() - contentWidth, Math.min(x, 0)),
                 contentHeight < height() ? 0 : Math.max(height() - contentHeight, Math.min(y, 0)));
     }
@@ -223,11 +321,11 @@ public class LinearGroup extends CellGroup {
             contentHeight += cell.height();
         }
         if (HORIZONTAL == orientation) {
-            contentWidth += paddingLeft + paddingRight + Math.max(0, size - 1) * divider;
+            contentWidth += scaled(paddingLeft) + scaled(paddingRight) + Math.max(0, size - 1) * scaled(divider);
             contentHeight = height();
         } else {
             contentWidth = width();
-            contentHeight += paddingTop + paddingBottom + Math.max(0, size - 1) * divider;
+            contentHeight += scaled(paddingTop) + scaled(paddingBottom) + Math.max(0, size - 1) * scaled(divider);
         }
     }
 
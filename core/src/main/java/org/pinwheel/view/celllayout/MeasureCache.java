@@ -0,0 +1,198 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Measured sizes of sub tree by the structure hash, the available size and the scale.
+ * The sections which have the same structure reuse the sizes of descendants instead of measuring them again,
+ * only the groups of library are cached, the custom cells and spacers may measure by anything else.
+ *
+ * @author dnwang
+ * @version 2018/12/31,15:10
+ */
+final class MeasureCache {
+
+    private static final int MAX_SIZE = 128;
+
+    static final long NONE = 0; // hash isn't computed
+    private static final long UNCACHEABLE = -1;
+
+    private static final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private MeasureCache() {
+    }
+
+    /**
+     * measure the cell, or restore the sizes of it's sub tree from cache
+     */
+    static void measure(Cell cell, int width, int height) {
+        final long hash = cell instanceof CellGroup ? hashOf(cell) : UNCACHEABLE;
+        if (UNCACHEABLE == hash) {
+            cell.measure(width, height);
+            return;
+        }
+        final float scale = cell.getScale();
+        final long key = mix(mix(mix(hash, width), height), Float.floatToIntBits(scale));
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (null != entry && entry.hash == hash && entry.width == width
+                && entry.height == height && entry.scale == scale) {
+            restore(cell, entry.sizes, 0, scale);
+            return;
+        }
+        cell.measure(width, height);
+        entry = new Entry(hash, width, height, scale, new int[count(cell) * 2]);
+        save(cell, entry.sizes, 0);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * the sub tree has no custom cell and recycling grid, it's measured by the known rules only,
+     * so it's safe to measure and layout it on worker thread.
+     */
+    static boolean isCacheable(Cell cell) {
+        return UNCACHEABLE != hashOf(cell);
+    }
+
+    /**
+     * structure of sub tree which affects measure, include the params of children but not self.
+     * it's kept by cell until the measure is requested again.
+     */
+    private static long hashOf(Cell cell) {
+        long hash = cell.structureHash;
+        if (NONE != hash) {
+            return hash;
+        }
+        final Class<?> type = cell.getClass();
+        if (type == LinearGroup.class) {
+            final LinearGroup group = (LinearGroup) cell;
+            hash = hashOfGroup(group);
+            if (UNCACHEABLE != hash) {
+                hash = mix(mix(hash, group.getDivider()), group.getOrientation());
+            }
+        } else if (type == GridGroup.class) {
+            final GridGroup group = (GridGroup) cell;
+            hash = hashOfGroup(group);
+            if (UNCACHEABLE != hash) {
+                hash = mix(mix(mix(hash, group.getDivider()), group.getRow()), group.getColumn());
+            }
+        } else if (type == Cell.class || type == PlaceholderCell.class) {
+            hash = mix(type.hashCode(), 0);
+        } else {
+            hash = UNCACHEABLE;
+        }
+        if (UNCACHEABLE != hash) {
+            hash = mix(mix(mix(mix(hash, cell.paddingLeft), cell.paddingTop), cell.paddingRight), cell.paddingBottom);
+            if (NONE == hash || UNCACHEABLE == hash) {
+                hash = 1;
+            }
+        }
+        cell.structureHash = hash;
+        return hash;
+    }
+
+    private static long hashOfGroup(CellGroup group) {
+        long hash = mix(group.getClass().hashCode(), group.getCellCount());
+        final int size = group.getCellCount();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = group.getCellAt(i);
+            final long child = hashOf(cell);
+            if (UNCACHEABLE == child) {
+                return UNCACHEABLE;
+            }
+            hash = mix(mix(hash, child), hashOfParams(cell.params()));
+        }
+        return hash;
+    }
+
+    private static long hashOfParams(CellGroup.Params p) {
+        if (null == p) {
+            return 0;
+        }
+        long hash = mix(mix(mix(mix(mix(mix(p.getClass().hashCode(), p.width), p.height),
+                p.marginLeft), p.marginTop), p.marginRight), p.marginBottom);
+        if (p instanceof GridGroup.Params) {
+            final GridGroup.Params gp = (GridGroup.Params) p;
+            hash = mix(mix(mix(mix(hash, gp.x), gp.y), gp.columnCount), gp.rowCount);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001B3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static int count(Cell cell) {
+        int count = 1;
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                count += count(group.getCellAt(i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * pre-order
+     */
+    private static int save(Cell cell, int[] sizes, int index) {
+        sizes[index++] = cell.width();
+        sizes[index++] = cell.height();
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                index = save(group.getCellAt(i), sizes, index);
+            }
+        }
+        return index;
+    }
+
+    private static int restore(Cell cell, int[] sizes, int index, float scale) {
+        cell.setScale(scale);
+        cell.setMeasured(sizes[index++], sizes[index++]);
+        if (cell instanceof CellGroup) {
+            final CellGroup group = (CellGroup) cell;
+            final int size = group.getCellCount();
+            for (int i = 0; i < size; i++) {
+                index = restore(group.getCellAt(i), sizes, index, scale);
+            }
+            // children have been restored
+            group.onMeasureRestored();
+        }
+        return index;
+    }
+
+    private static final class Entry {
+        final long hash;
+        final int width, height;
+        final float scale;
+        final int[] sizes; // width and height of cells in pre-order
+
+        Entry(long hash, int width, int height, float scale, int[] sizes) {
+            this.hash = hash;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.sizes = sizes;
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ *
+ * @author dnwang
+ * @version 2018/12/20,10:12
+ */
+final class Parallel {
+
+    static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService executor;
+    private static ExecutorService layout;
+    private static ExecutorService background;
+
+    private static synchronized ExecutorService getExecutor() {
+        if (null == executor) {
+            executor = Executors.newFixedThreadPool(CORES, newThreadFactory("CellLayout.Parallel-"));
+        }
+        return executor;
+    }
+
+    private static synchronized ExecutorService getLayout() {
+        if (null == layout) {
+            layout = Executors.newFixedThreadPool(CORES, newThreadFactory("CellLayout.Layout-"));
+        }
+        return layout;
+    }
+
+    private static synchronized ExecutorService getBackground() {
+        if (null == background) {
+            background = Executors.newCachedThreadPool(newThreadFactory("CellLayout.Background-"));
+        }
+        return background;
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger(0);
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    static boolean isEnable() {
+        return CORES > 1;
+    }
+
+    /**
+     * run a long task of layout which shouldn't block the sync thread, like loading page, reading stream,
+     * inflating views and parsing a section. all background work of CellLayout shares this executor.
+     * it isn't run by the workers of {@link #invokeAll(List)}, so the task can still wait for them.
+     */
+    static void execute(Runnable task) {
+        getBackground().execute(task);
+    }
+
+    /**
+     * run all tasks on worker threads, results keep the same order with tasks
+     */
+    static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws Exception {
+        return invokeAll(getExecutor(), tasks);
+    }
+
+    /**
+     * the same with {@link #invokeAll(List)} for measure and layout on UIThread,
+     * they have their own workers, so UIThread never waits for the parsing on background.
+     */
+    static <T> List<T> invokeLayout(List<? extends Callable<T>> tasks) throws Exception {
+        return invokeAll(getLayout(), tasks);
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks) throws Exception {
+        final List<Future<T>> futures = executor.invokeAll(tasks);
+        final List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else {
+                throw e;
+            }
+        }
+        return results;
+    }
+
+}
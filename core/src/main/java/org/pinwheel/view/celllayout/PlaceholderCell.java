@@ -0,0 +1,46 @@
+package org.pinwheel.view.celllayout;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Unparsed sub tree of template which is marked by 'lazy', it's measured by the declared size of params.
+ * The real cells will be parsed and replace it when it's close to the visible area.
+ *
+ * @author dnwang
+ * @version 2018/12/24,10:05
+ */
+public final class PlaceholderCell extends Cell {
+
+    final JSONObject args;
+    final int version;
+    final int resolution;
+    /**
+     * fragments of template, the sub tree may reference them
+     */
+    final Map<String, JSONObject> fragments;
+
+    boolean materializing = false;
+
+    PlaceholderCell(int id, JSONObject args, int version, int resolution, Map<String, JSONObject> fragments) {
+        super(id);
+        this.args = args;
+        this.version = version;
+        this.resolution = resolution;
+        this.fragments = fragments;
+        setFocusable(false);
+    }
+
+    @Override
+    PlaceholderCell copy(int id) {
+        final PlaceholderCell cell = (PlaceholderCell) super.copy(id);
+        cell.materializing = false;
+        return cell;
+    }
+
+}
@@ -0,0 +1,298 @@
+package org.pinwheel.view.celllayout;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Grid of 'count' items with the same size, the geometry of item is computed by it's position.
+ * Only the cells of visible lines are created, they are moved to the new positions when scrolling,
+ * use {@link #getPosition(Cell)} to bind the data of item.
+ *
+ * @author dnwang
+ * @version 2018/12/28,10:16
+ */
+public class RecyclingGridGroup extends LinearGroup {
+
+    @Attribute
+    private int count;
+    @Attribute
+    private int column;
+    @Attribute(fixedResolution = true)
+    private int itemSize; // size of item in orientation
+    @Attribute
+    private int itemStyle = StyleAdapter.DEF_STYLE_ID;
+
+    private int itemWidth, itemHeight;
+    private int contentWidth, contentHeight;
+
+    public RecyclingGridGroup(int orientation, int column, int itemSize) {
+        super(orientation);
+        this.column = Math.max(1, column);
+        this.itemSize = itemSize;
+    }
+
+    RecyclingGridGroup(int id, int orientation) {
+        super(id, orientation);
+        this.column = 1;
+    }
+
+    public void setCount(int count) {
+        this.count = Math.max(0, count);
+        requestMeasureAndLayout();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setColumn(int column) {
+        this.column = Math.max(1, column);
+        requestMeasureAndLayout();
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public void setItemSize(int itemSize) {
+        this.itemSize = itemSize;
+        requestMeasureAndLayout();
+    }
+
+    public int getItemSize() {
+        return itemSize;
+    }
+
+    public void setItemStyle(int itemStyle) {
+        this.itemStyle = itemStyle;
+    }
+
+    /**
+     * position of item, -1 if the cell isn't a item of grid
+     */
+    public static int getPosition(Cell cell) {
+        final CellGroup.Params p = null != cell ? cell.params() : null;
+        return p instanceof Params ? ((Params) p).position : -1;
+    }
+
+    /**
+     * the item which is out of count, it's never visible
+     */
+    static boolean isParked(Cell cell) {
+        return cell.params() instanceof Params && ((Params) cell.params()).position < 0;
+    }
+
+    @Override
+    public void addCell(Cell cell, CellGroup.Params p) {
+        throw new IllegalStateException("cells of RecyclingGridGroup are created by itself !");
+    }
+
+    @Override
+    protected void measure(final int width, final int height) {
+        final boolean horizontal = HORIZONTAL == getOrientation();
+        final int divider = scaled(getDivider());
+        final int column = Math.max(1, this.column);
+        if (itemSize <= 0) {
+            Log.w(CellLayout.TAG, "[RecyclingGridGroup.measure]: grid have no 'itemSize', the items will not visible !");
+        }
+        if (horizontal) {
+            itemWidth = scaled(itemSize);
+            itemHeight = Math.max(0, (height - scaled(paddingTop) - scaled(paddingBottom) - (column - 1) * divider) / column);
+        } else {
+            itemWidth = Math.max(0, (width - scaled(paddingLeft) - scaled(paddingRight) - (column - 1) * divider) / column);
+            itemHeight = scaled(itemSize);
+        }
+        // window of items is covered the visible area of root
+        Cell root = this;
+        while (null != root.getParent()) {
+            root = root.getParent();
+        }
+        final int extent = root == this ? (horizontal ? width : height) : (horizontal ? root.width() : root.height());
+        final int stride = (horizontal ? itemWidth : itemHeight) + divider;
+        final int lines = stride > 0 ? (extent + extent / 5 * 2) / stride + 2 : 1;
+        resizeWindow(Math.min(count, lines * column));
+        // items are measured here, LinearGroup skips the measured cells
+        final int size = getCellCount();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = getCellAt(i);
+            cell.clearMeasureAndLayout();
+            cell.setScale(getScale());
+            cell.measure(itemWidth, itemHeight);
+        }
+        super.measure(width, height);
+    }
+
+    /**
+     * the positions are continuous after resize, the extra cells are parked.
+     * the views of removed cells can't be released here, so the parked cell is removed at the next time
+     * after it's invisible and it's view has been recycled.
+     */
+    private void resizeWindow(int size) {
+        for (int i = getCellCount() - 1; i >= 0 && getCellCount() > size; i--) {
+            final Cell cell = getCellAt(i);
+            if (isParked(cell) && !cell.isVisible() && !cell.hasContent()) {
+                removeCellsInner(i, i + 1);
+            }
+        }
+        for (int i = getCellCount(); i < size; i++) {
+            addCellInner(new Cell(), new Params(itemStyle));
+        }
+        final int cellCount = getCellCount();
+        int first = Integer.MAX_VALUE;
+        for (int i = 0; i < cellCount; i++) {
+            final int position = getPosition(getCellAt(i));
+            if (position >= 0 && position < first) {
+                first = position;
+            }
+        }
+        first = Integer.MAX_VALUE == first ? 0 : first;
+        first = Math.max(0, Math.min(first, count - size));
+        first -= first % Math.max(1, column);
+        for (int i = 0; i < cellCount; i++) {
+            final Cell cell = getCellAt(i);
+            final Params p = (Params) cell.params();
+            final boolean parked = p.position < 0;
+            p.styleId = itemStyle;
+            p.position = i < size && first + i < count ? first + i : -1;
+            if (p.position < 0) {
+                cell.setFocusable(false);
+            } else if (parked) {
+                cell.setFocusable(true);
+            }
+        }
+    }
+
+    @Override
+    protected void layout(int x, int y, int scrollX, int scrollY) {
+        // items are layout here, LinearGroup skips the layout cells
+        final int sx = scrollX + getScrollX(), sy = scrollY + getScrollY();
+        final int size = getCellCount();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = getCellAt(i);
+            if (cell.isLayout()) continue;
+            final int position = Math.max(0, getPosition(cell));
+            cell.layout(x + getItemLeft(position), y + getItemTop(position), sx, sy);
+        }
+        super.layout(x, y, scrollX, scrollY);
+    }
+
+    private int getItemLeft(int position) {
+        final int column = Math.max(1, this.column);
+        final int divider = scaled(getDivider());
+        final int index = HORIZONTAL == getOrientation() ? position / column : position % column;
+        return scaled(paddingLeft) + index * (itemWidth + divider);
+    }
+
+    private int getItemTop(int position) {
+        final int column = Math.max(1, this.column);
+        final int divider = scaled(getDivider());
+        final int index = HORIZONTAL == getOrientation() ? position % column : position / column;
+        return scaled(paddingTop) + index * (itemHeight + divider);
+    }
+
+    /**
+     * move the items which are out of area to the missing positions in area.
+     * it's called on sync thread after the cells are moved.
+     *
+     * @return moved cells, they should be bound again
+     */
+    List<Cell> recycle(Rect area) {
+        final int size = getCellCount();
+        if (0 == size || !isLayout()) {
+            return Collections.emptyList();
+        }
+        final boolean horizontal = HORIZONTAL == getOrientation();
+        final int column = Math.max(1, this.column);
+        final int stride = (horizontal ? itemWidth : itemHeight) + scaled(getDivider());
+        if (stride <= 0) {
+            return Collections.emptyList();
+        }
+        // origin of grid is computed by current rect of cell, the scroll value may be ahead of cells
+        Cell ref = getCellAt(0);
+        for (int i = 1; i < size && isParked(ref); i++) {
+            ref = getCellAt(i);
+        }
+        final int refPosition = Math.max(0, getPosition(ref));
+        final int originX = ref.getLeft() - getItemLeft(refPosition);
+        final int originY = ref.getTop() - getItemTop(refPosition);
+        final int start, end;
+        if (horizontal) {
+            start = floorDiv(area.getLeft() - originX - scaled(paddingLeft), stride);
+            end = floorDiv(area.getRight() - 1 - originX - scaled(paddingLeft), stride);
+        } else {
+            start = floorDiv(area.getTop() - originY - scaled(paddingTop), stride);
+            end = floorDiv(area.getBottom() - 1 - originY - scaled(paddingTop), stride);
+        }
+        final int first = Math.max(0, start) * column;
+        final int last = Math.min(Math.min(count, (end + 1) * column), first + size);
+        if (first >= last) {
+            return Collections.emptyList();
+        }
+        final boolean[] present = new boolean[last - first];
+        final List<Cell> free = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final Cell cell = getCellAt(i);
+            final int position = getPosition(cell);
+            if (position >= first && position < last) {
+                present[position - first] = true;
+            } else {
+                free.add(cell);
+            }
+        }
+        final List<Cell> moved = new ArrayList<>();
+        int index = 0;
+        for (int i = 0; i < present.length && index < free.size(); i++) {
+            if (present[i]) continue;
+            final Cell cell = free.get(index++);
+            final int position = first + i;
+            cell.offsetLayout(originX + getItemLeft(position) - cell.getLeft(), originY + getItemTop(position) - cell.getTop());
+            if (isParked(cell)) {
+                cell.setFocusable(true);
+            }
+            ((Params) cell.params()).position = position;
+            moved.add(cell);
+        }
+        return moved;
+    }
+
+    @Override
+    public void measureContent() {
+        final int column = Math.max(1, this.column);
+        final int divider = scaled(getDivider());
+        final int lines = (count + column - 1) / column;
+        if (HORIZONTAL == getOrientation()) {
+            contentWidth = scaled(paddingLeft) + scaled(paddingRight) + lines * itemWidth + Math.max(0, lines - 1) * divider;
+            contentHeight = height();
+        } else {
+            contentWidth = width();
+            contentHeight = scaled(paddingTop) + scaled(paddingBottom) + lines * itemHeight + Math.max(0, lines - 1) * divider;
+        }
+    }
+
+    @Override
+    public int getContentWidth() {
+        return contentWidth;
+    }
+
+    @Override
+    public int getContentHeight() {
+        return contentHeight;
+    }
+
+    public static final class Params extends LinearGroup.Params {
+        int position = -1;
+
+        Params(int styleId) {
+            super();
+            this.styleId = styleId;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.pinwheel.view.celllayout;
+
+import android.content.ComponentCallbacks2;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Pool of detached views which is shared by several CellLayouts, like RecycledViewPool of RecyclerView.
+ * The extra views of CellLayout are moved here instead of dropping, and taken back by any CellLayout
+ * which has the same style. The layouts must use the same styleId for the same view.
+ * The views are evicted by least recent use when the total cost is over budget, or the count of style is over max.
+ * It's used on UIThread only.
+ *
+ * @author dnwang
+ * @version 2019/01/02,10:30
+ */
+public class SharedViewPool {
+
+    private static final int DEF_MAX_VIEWS = 10; // every style
+
+    private final LinkedHashMap<View, Entry> entries = new LinkedHashMap<>(); // order of recycle
+    private final SparseArray<List<Entry>> styles = new SparseArray<>();
+    private final SparseIntArray maxViews = new SparseIntArray();
+    private long maxCost;
+    private long cost = 0;
+
+    /**
+     * @param maxCost budget of all views, it's the sum of {@link #sizeOf(int, View)}
+     */
+    public SharedViewPool(long maxCost) {
+        this.maxCost = Math.max(0, maxCost);
+    }
+
+    public void setMaxCost(long maxCost) {
+        this.maxCost = Math.max(0, maxCost);
+        trimToCost(this.maxCost);
+    }
+
+    public void setMaxRecycledViews(int styleId, int max) {
+        maxViews.put(styleId, Math.max(0, max));
+        final List<Entry> list = styles.get(styleId);
+        while (null != list && list.size() > Math.max(0, max)) {
+            remove(list.get(0));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long cost() {
+        return cost;
+    }
+
+    public void clear() {
+        entries.clear();
+        styles.clear();
+        cost = 0;
+    }
+
+    /**
+     * it's called by attached layouts, see {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            trimToCost(maxCost / 2);
+        }
+    }
+
+    /**
+     * estimated memory of view, default is the bytes of it's measured area in ARGB_8888
+     */
+    protected int sizeOf(int styleId, View view) {
+        return Math.max(1, view.getMeasuredWidth()) * Math.max(1, view.getMeasuredHeight()) * 4;
+    }
+
+    /**
+     * the view must be detached from parent
+     */
+    void put(int styleId, View view) {
+        if (null == view || null != view.getParent() || entries.containsKey(view)) return;
+        final int max = maxViews.get(styleId, DEF_MAX_VIEWS);
+        if (max <= 0) return;
+        List<Entry> list = styles.get(styleId);
+        if (null == list) {
+            list = new ArrayList<>();
+            styles.put(styleId, list);
+        }
+        if (list.size() >= max) {
+            remove(list.get(0)); // the oldest of style
+        }
+        final Entry entry = new Entry(styleId, view, Math.max(1, sizeOf(styleId, view)));
+        list.add(entry);
+        entries.put(view, entry);
+        cost += entry.cost;
+        trimToCost(maxCost);
+    }
+
+    /**
+     * the view of the same size is preferred, it doesn't need measure again
+     *
+     * @param force return null if there is no view of the same size
+     */
+    View obtain(int styleId, int width, int height, boolean force) {
+        final List<Entry> list = styles.get(styleId);
+        if (null == list || list.isEmpty()) {
+            return null;
+        }
+        Entry entry = null;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            final View v = list.get(i).view;
+            if (v.getMeasuredWidth() == width && v.getMeasuredHeight() == height) {
+                entry = list.get(i);
+                break;
+            }
+        }
+        if (null == entry && !force) {
+            entry = list.get(list.size() - 1); // the most recent
+        }
+        if (null == entry) {
+            return null;
+        }
+        remove(entry);
+        return entry.view;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.view);
+        styles.get(entry.styleId).remove(entry);
+        cost -= entry.cost;
+    }
+
+    private void trimToCost(long maxCost) {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (cost > maxCost && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            iterator.remove();
+            styles.get(entry.styleId).remove(entry);
+            cost -= entry.cost;
+        }
+    }
+
+    private static final class Entry {
+        final int styleId;
+        final View view;
+        final int cost;
+
+        Entry(int styleId, View view, int cost) {
+            this.styleId = styleId;
+            this.view = view;
+            this.cost = cost;
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.pinwheel.view.celllayout;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Evicted sections of root in windowed mode, it keeps the params of sections so the size is not changed.
+ * The adjacent spacers are merged into one, the sections will be loaded from {@link CellSource} again
+ * page by page when they are close to the visible area.
+ *
+ * @author dnwang
+ * @version 2018/12/27,16:40
+ */
+final class SpacerCell extends Cell {
+
+    // evicted sections in order, page and index in page of source
+    private int[] pages = new int[1];
+    private int[] indexes = new int[1];
+    private CellGroup.Params[] params = new CellGroup.Params[1];
+    private int count = 0;
+
+    boolean restoring = false;
+
+    SpacerCell(int page, int index, CellGroup.Params p) {
+        super();
+        setFocusable(false);
+        add(page, index, p);
+        updateParams();
+    }
+
+    int getSectionCount() {
+        return count;
+    }
+
+    int getPage(int section) {
+        return pages[section];
+    }
+
+    int getIndex(int section) {
+        return indexes[section];
+    }
+
+    boolean hasPage(int page) {
+        for (int i = 0; i < count; i++) {
+            if (page == pages[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * append the sections of the next spacer
+     */
+    void merge(SpacerCell next) {
+        for (int i = 0; i < next.count; i++) {
+            add(next.pages[i], next.indexes[i], next.params[i]);
+        }
+        updateParams();
+        requestMeasureAndLayout();
+    }
+
+    /**
+     * new spacer of the sections in [from, to)
+     */
+    SpacerCell slice(int from, int to) {
+        final SpacerCell spacer = new SpacerCell(pages[from], indexes[from], params[from]);
+        for (int i = from + 1; i < to; i++) {
+            spacer.add(pages[i], indexes[i], params[i]);
+        }
+        spacer.updateParams();
+        return spacer;
+    }
+
+    /**
+     * @param offset distance from the start of spacer in main axis of parent
+     * @return page of the section at offset
+     */
+    int findPage(int offset) {
+        for (int i = 0; i < count - 1; i++) {
+            if (offset < endOf(i)) {
+                return pages[i];
+            }
+        }
+        return pages[count - 1];
+    }
+
+    private void add(int page, int index, CellGroup.Params p) {
+        if (count == pages.length) {
+            pages = Arrays.copyOf(pages, count * 2);
+            indexes = Arrays.copyOf(indexes, count * 2);
+            params = Arrays.copyOf(params, count * 2);
+        }
+        pages[count] = page;
+        indexes[count] = index;
+        params[count] = p;
+        count++;
+    }
+
+    /**
+     * margins before the first section and after the last section
+     */
+    private void updateParams() {
+        final CellGroup.Params p = params[0].copy();
+        p.marginRight = params[count - 1].marginRight;
+        p.marginBottom = params[count - 1].marginBottom;
+        setParams(p);
+    }
+
+    /**
+     * the same size with the sections and the space between them in linear group
+     */
+    @Override
+    protected void measure(int width, int height) {
+        if (count > 1 && getParent() instanceof LinearGroup) {
+            if (LinearGroup.HORIZONTAL == ((LinearGroup) getParent()).getOrientation()) {
+                width = endOf(count - 1);
+            } else {
+                height = endOf(count - 1);
+            }
+        }
+        super.measure(width, height);
+    }
+
+    /**
+     * distance between the start of spacer and the end of section
+     */
+    private int endOf(int section) {
+        if (!(getParent() instanceof LinearGroup)) {
+            return 0;
+        }
+        final LinearGroup parent = (LinearGroup) getParent();
+        final boolean horizontal = LinearGroup.HORIZONTAL == parent.getOrientation();
+        final int divider = scaled(parent.getDivider());
+        int offset = 0;
+        for (int i = 0; i <= section; i++) {
+            final CellGroup.Params p = params[i];
+            if (i > 0) {
+                final CellGroup.Params last = params[i - 1];
+                offset += divider + (horizontal ? scaled(last.marginRight) + scaled(p.marginLeft)
+                        : scaled(last.marginBottom) + scaled(p.marginTop));
+            }
+            offset += scaled(horizontal ? p.width : p.height);
+        }
+        return offset;
+    }
+
+}
@@ -4,6 +4,8 @@ import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 
+import org.json.JSONObject;
+
 /**
  * Copyright (C), 2018 <br>
  * <br>
@@ -13,13 +15,35 @@ import android.view.View;
  * @author dnwang
  * @version 2018/11/28,13:49
  */
-public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.OnCellSelectedChangeListener {
+public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.PayloadViewAdapter, CellLayout.OnCellSelectedChangeListener {
 
     static final int DEF_STYLE_ID = 0;
 
     private SparseArray<Style> viewStyles = new SparseArray<>();
+    private CellData cellData = new CellData();
+    private boolean releaseDataOnRecycled = false;
     LayoutInflater inflater;
 
+    public StyleAdapter setCellData(CellData cellData) {
+        this.cellData = null != cellData ? cellData : new CellData();
+        this.cellData.setKeepSlices(releaseDataOnRecycled);
+        return this;
+    }
+
+    public CellData getCellData() {
+        return cellData;
+    }
+
+    /**
+     * drop decoded data of cell after it's view is recycled, it will be decoded again at the next binding.
+     * the template source is kept until the content is changed.
+     */
+    public StyleAdapter setReleaseDataOnRecycled(boolean is) {
+        this.releaseDataOnRecycled = is;
+        cellData.setKeepSlices(is);
+        return this;
+    }
+
     public StyleAdapter addStyle(Style style) {
         addStyle(DEF_STYLE_ID, style);
         return this;
@@ -35,7 +59,7 @@ public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.On
 
     @Override
     public final int getViewType(Cell cell) {
-        final CellGroup.Params p = cell.getParams();
+        final CellGroup.Params p = cell.params();
         if (null == p) {
             throw new NullPointerException("can't found cell's params !");
         }
@@ -44,11 +68,40 @@ public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.On
 
     @Override
     public final View onCreateView(Cell cell) {
-        final Style style = viewStyles.get(getViewType(cell));
-        if (null == style) {
+        final View view = inflate(getViewType(cell), inflater);
+        if (null == view) {
             throw new UnknownError("unknown view style !");
         }
-        final View view = inflater.inflate(style.layoutId, null, false);
+        return view;
+    }
+
+    /**
+     * @return null if the style isn't found
+     */
+    View inflate(int styleId, LayoutInflater inflater) {
+        return inflateLayout(getLayoutId(styleId), inflater);
+    }
+
+    /**
+     * the styles are read on UIThread only
+     *
+     * @return 0 if the style isn't found
+     */
+    int getLayoutId(int styleId) {
+        final Style style = viewStyles.get(styleId);
+        return null != style ? style.layoutId : 0;
+    }
+
+    /**
+     * it's called on work thread to inflate views before binding, the inflater should be cloned for the thread
+     *
+     * @return null if the layoutId is 0
+     */
+    static View inflateLayout(int layoutId, LayoutInflater inflater) {
+        if (0 == layoutId) {
+            return null;
+        }
+        final View view = inflater.inflate(layoutId, null, false);
         view.setTag(new Holder(view));
         return view;
     }
@@ -57,7 +110,15 @@ public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.On
     public final void onBindView(Cell cell, View view) {
         final Style style = viewStyles.get(getViewType(cell));
         if (null != style) {
-            style.onBind(cell, getHolder(view));
+            style.onBind(cell, getHolder(view), cellData);
+        }
+    }
+
+    @Override
+    public final void onBindView(Cell cell, View view, Object payload) {
+        final Style style = viewStyles.get(getViewType(cell));
+        if (null != style) {
+            style.onBind(cell, getHolder(view), cellData, payload);
         }
     }
 
@@ -67,6 +128,9 @@ public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.On
         if (null != style) {
             style.onRecycled(cell, getHolder(view));
         }
+        if (releaseDataOnRecycled) {
+            cellData.release(cell.getId());
+        }
     }
 
     private Holder getHolder(View view) {
@@ -100,7 +164,23 @@ public final class StyleAdapter implements CellLayout.ViewAdapter, CellLayout.On
             this.layoutId = layoutId;
         }
 
-        public abstract void onBind(Cell cell, Holder holder);
+        public void onBind(Cell cell, Holder holder) {
+        }
+
+        /**
+         * read cell's data from store by typed getters, eg: {@link CellData#getString(int, String)}
+         */
+        public void onBind(Cell cell, Holder holder, CellData data) {
+            onBind(cell, holder);
+        }
+
+        /**
+         * rebind changed cell, just update the views which are related to payload.
+         * payload is the changed fields of data if it's changed by {@link CellLayout#updateData(JSONObject)}
+         */
+        public void onBind(Cell cell, Holder holder, CellData data, Object payload) {
+            onBind(cell, holder, data);
+        }
 
         public void onSelectChanged(Cell cell, Holder holder, boolean isSelected) {
         }
@@ -1,6 +1,5 @@
 package org.pinwheel.view.celllayout;
 
-import android.content.res.Resources;
 import android.os.Bundle;
 import android.util.Log;
 import android.util.SparseArray;
@@ -9,8 +8,17 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.Reader;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Copyright (C), 2018 <br>
@@ -26,22 +34,35 @@ public final class TemplateFactory {
 
     private static final String ATTR_VERSION = "version";
     private static final String ATTR_RESOLUTION = "targetResolution";
-    private static final String ATTR_ROOT = "root";
+    private static final String ATTR_ROOT = TemplateReader.ATTR_ROOT;
     private static final String ATTR_TYPE = "type";
-    private static final String ATTR_DATA = "data";
-    private static final String ATTR_SUB_CELLS = "cells";
+    private static final String ATTR_DATA = TemplateReader.ATTR_DATA;
+    private static final String ATTR_SUB_CELLS = TemplateReader.ATTR_SUB_CELLS;
     private static final String ATTR_GROUP_GRID = "grid";
+    private static final String ATTR_GROUP_RECYCLING_GRID = "recycling_grid";
     private static final String ATTR_GROUP_LINEAR = "linear";
+    private static final String ATTR_LAZY = "lazy";
+    private static final String ATTR_FRAGMENTS = "fragments";
+    private static final String ATTR_REF = "$ref";
+    private static final String ATTR_REF_DATA = TemplateReader.ATTR_REF_DATA;
 
+    /**
+     * the data of cells will be decoded when it's read at the first time
+     */
     public static Template load(String jsonString) throws JSONException {
-        return load(new JSONObject(jsonString));
+        return load(new TemplateReader(jsonString).readDocument());
     }
 
+    /**
+     * version 2: named 'fragments' can be referenced by '$ref' in the cell tree,
+     * the other attributes of reference override the root of fragment.
+     * '$data' is an array of data in the pre-order of fragment cells, it replaces the data of fragment.
+     */
     public static Template load(JSONObject json) throws JSONException {
         final int version = json.optInt(ATTR_VERSION, 1);
         final int resolution = json.optInt(ATTR_RESOLUTION, 1080);
-        if (version <= 1) {
-            IParser parser = new DefaultParser(resolution);
+        if (version <= 2) {
+            IParser parser = new DefaultParser(version, resolution, getFragments(json, version));
             parser.parse(json);
             return new Template(version, resolution, parser.getRoot(), parser.getData());
         } else {
@@ -49,18 +70,140 @@ public final class TemplateFactory {
         }
     }
 
+    /**
+     * read template from stream, every child of root is notified as soon as it has been parsed.
+     * it blocks until the end of stream, so call it on work thread.
+     * the attributes of document and root must be declared before the cells of root, or it fails.
+     */
+    public static void load(Reader reader, final OnTemplateStreamListener listener) {
+        final Template[] template = new Template[1];
+        try {
+            new TemplateReader(reader).readDocument(new TemplateReader.RootListener() {
+                DefaultParser parser;
+
+                @Override
+                public void onRootBegin(JSONObject document, JSONObject rootArgs) throws JSONException {
+                    final int version = document.optInt(ATTR_VERSION, 1);
+                    final int resolution = document.optInt(ATTR_RESOLUTION, 1080);
+                    if (version > 2) {
+                        throw new JSONException("can't found this special version parser ! version:" + version);
+                    }
+                    parser = new DefaultParser(version, resolution, getFragments(document, version));
+                    parser.parseRoot(rootArgs);
+                    template[0] = new Template(version, resolution, parser.getRoot(), parser.getData());
+                    listener.onStart(template[0]);
+                }
+
+                @Override
+                public void onRootCell(JSONObject args) throws JSONException {
+                    final SubTree subTree = parser.parseRootCell(args);
+                    if (null != subTree) {
+                        listener.onCellLoaded(template[0], subTree.cell, subTree.data);
+                    }
+                }
+            });
+            if (null == template[0]) {
+                throw new JSONException("template has no root !");
+            }
+            listener.onComplete(template[0]);
+        } catch (JSONException | RuntimeException e) {
+            listener.onError(e);
+        }
+    }
+
+    /**
+     * parse the real sub tree of placeholder, can be called on work thread
+     */
+    static Template materialize(PlaceholderCell placeholder) throws JSONException {
+        final DefaultParser parser = new DefaultParser(placeholder.version, placeholder.resolution, placeholder.fragments);
+        parser.parseSubTree(placeholder);
+        return new Template(placeholder.version, placeholder.resolution, parser.getRoot(), parser.getData());
+    }
+
+    private static Map<String, JSONObject> getFragments(JSONObject json, int version) throws JSONException {
+        final JSONObject fragments = version >= 2 ? json.optJSONObject(ATTR_FRAGMENTS) : null;
+        if (null == fragments) {
+            return null;
+        }
+        final Map<String, JSONObject> map = new HashMap<>(fragments.length());
+        final Iterator<String> names = fragments.keys();
+        while (names.hasNext()) {
+            final String name = names.next();
+            map.put(name, fragments.getJSONObject(name));
+        }
+        return map;
+    }
+
     private static final class DefaultParser implements IParser {
-        private SparseArray<Bundle> dataMap;
+        /**
+         * the template which has more cells than this will be parsed by worker threads
+         */
+        private static final int PARALLEL_THRESHOLD = 512;
+
+        private CellData dataMap;
         private Cell root;
+        private final int version;
         private final int resolution;
+        // fragment args and compiled prototypes
+        private final Map<String, JSONObject> fragmentArgs;
+        private final HashMap<String, Fragment> fragments = new HashMap<>();
+        private final Set<String> compiling = new HashSet<>();
+        // params of the same layout, key is the class and attributes in args. it's read by worker threads
+        private final ConcurrentHashMap<String, CellGroup.Params> sharedParams = new ConcurrentHashMap<>();
+        // recycled cells of the layout which loads template, it's shared with worker threads
+        private final CellPool cellPool;
 
-        DefaultParser(int resolution) {
+        DefaultParser(int version, int resolution, Map<String, JSONObject> fragmentArgs) {
+            this.version = version;
             this.resolution = resolution;
+            this.fragmentArgs = fragmentArgs;
+            this.cellPool = CellPool.current();
         }
 
         @Override
         public void parse(JSONObject json) throws JSONException {
-            root = _parse(json.getJSONObject(ATTR_ROOT), null);
+            final JSONObject rootArgs = json.getJSONObject(ATTR_ROOT);
+            if (null != fragmentArgs) {
+                // compile all before parse, prototypes are read only on worker threads
+                for (String name : fragmentArgs.keySet()) {
+                    getFragment(name);
+                }
+            }
+            final int count = countCells(rootArgs);
+            // ids are reserved by document order, so they are stable whether parse parallel or not
+            final IdSequence ids = new IdSequence(Cell.reserveIds(count));
+            final JSONArray subArgsList = rootArgs.optJSONArray(ATTR_SUB_CELLS);
+            if (Parallel.isEnable() && count >= PARALLEL_THRESHOLD
+                    && isGroup(rootArgs) && null != subArgsList && subArgsList.length() > 1) {
+                root = parseParallel(rootArgs, subArgsList, ids);
+            } else {
+                dataMap = new CellData();
+                root = _parse(rootArgs, null, ids, dataMap);
+            }
+        }
+
+        /**
+         * just the root without children, children will be parsed by {@link #parseRootCell(JSONObject)}
+         */
+        void parseRoot(JSONObject rootArgs) {
+            dataMap = new CellData();
+            root = createRoot(rootArgs, Cell.reserveIds(1));
+        }
+
+        SubTree parseRootCell(JSONObject args) throws JSONException {
+            if (!(root instanceof CellGroup)) {
+                return null;
+            }
+            final CellData data = new CellData();
+            final IdSequence ids = new IdSequence(Cell.reserveIds(countCells(args)));
+            return new SubTree(_parse(args, (CellGroup) root, ids, data), data);
+        }
+
+        void parseSubTree(PlaceholderCell placeholder) throws JSONException {
+            dataMap = new CellData();
+            // the sub tree use the id range reserved by placeholder
+            final IdSequence ids = new IdSequence(placeholder.getId());
+            root = parseNode(placeholder.args, placeholder.getParent(), ids, dataMap);
         }
 
         @Override
@@ -69,72 +212,273 @@ public final class TemplateFactory {
         }
 
         @Override
-        public SparseArray<Bundle> getData() {
+        public CellData getData() {
             return dataMap;
         }
 
-        private Cell _parse(JSONObject args, CellGroup parent) throws JSONException {
+        private Cell parseParallel(JSONObject rootArgs, JSONArray subArgsList, IdSequence ids) throws JSONException {
+            dataMap = new CellData();
+            final CellGroup group = (CellGroup) createRoot(rootArgs, ids.next());
+            // split sub trees, every task owns a reserved id range
+            final int size = subArgsList.length();
+            final List<Callable<SubTree>> tasks = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final JSONObject subArgs = subArgsList.getJSONObject(i);
+                final IdSequence subIds = new IdSequence(ids.next);
+                ids.skip(countCells(subArgs));
+                tasks.add(new Callable<SubTree>() {
+                    @Override
+                    public SubTree call() throws JSONException {
+                        final CellData data = new CellData();
+                        return new SubTree(_parse(subArgs, group, subIds, data), data);
+                    }
+                });
+            }
+            final List<SubTree> subTrees;
+            try {
+                subTrees = Parallel.invokeAll(tasks);
+            } catch (JSONException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new JSONException("parse sub cells failed ! " + e.getMessage());
+            }
+            // stitch in document order
+            for (SubTree subTree : subTrees) {
+                group.addCellInner(subTree.cell, subTree.cell.params());
+                dataMap.merge(subTree.data);
+            }
+            return group;
+        }
+
+        private Cell createRoot(JSONObject rootArgs, int id) {
+            final Cell cell = createCell(rootArgs, id);
+            bindingArgs(cell, rootArgs);
+            saveCellData(dataMap, cell.getId(), rootArgs.opt(ATTR_DATA));
+            final CellGroup.Params p = new CellGroup.Params();
+            bindingArgs(p, rootArgs);
+            cell.setParams(p);
+            return cell;
+        }
+
+        /**
+         * build cell tree without attach to parent, the params has been set to cell
+         */
+        private Cell _parse(JSONObject args, CellGroup parent, IdSequence ids, CellData data) throws JSONException {
+            if (null != parent && args.optBoolean(ATTR_LAZY, false)) {
+                return createPlaceholder(args, parent, ids);
+            }
+            return parseNode(args, parent, ids, data);
+        }
+
+        private Cell parseNode(JSONObject args, CellGroup parent, IdSequence ids, CellData data) throws JSONException {
+            if (null != fragmentArgs && args.has(ATTR_REF)) {
+                return stamp(args, parent, ids, data);
+            }
+            return parseCell(args, parent, ids, data);
+        }
+
+        /**
+         * the attributes of fragment are bound once, every reference just copy it's prototype
+         */
+        private Fragment getFragment(String name) throws JSONException {
+            Fragment fragment = fragments.get(name);
+            if (null == fragment) {
+                final JSONObject args = null != fragmentArgs ? fragmentArgs.get(name) : null;
+                if (null == args) {
+                    throw new JSONException("can't found fragment: " + name);
+                }
+                if (!compiling.add(name)) {
+                    throw new JSONException("fragment references itself: " + name);
+                }
+                // ids of prototype are the pre-order index + 1, it will never be attached
+                final IdSequence ids = new IdSequence(1);
+                final CellData data = new CellData();
+                final Cell prototype = parseNode(args, null, ids, data);
+                compiling.remove(name);
+                fragment = new Fragment(args, prototype, data, ids.next - 1);
+                fragments.put(name, fragment);
+            }
+            return fragment;
+        }
+
+        private Cell stamp(JSONObject args, CellGroup parent, IdSequence ids, CellData data) throws JSONException {
+            final Fragment fragment = getFragment(args.getString(ATTR_REF));
+            final int first = ids.next;
+            ids.skip(fragment.count);
+            final Cell cell = copyPrototype(fragment.prototype, first, fragment, args, data);
+            bindingArgs(cell, args, true);
+            cell.setParams(obtainParams(parent, fragment.args, args));
+            return cell;
+        }
+
+        private Cell copyPrototype(Cell prototype, int first, Fragment fragment, JSONObject args, CellData data) {
+            final int index = prototype.getId() - 1;
+            final Cell cell = prototype.copy(first + index);
+            // data of reference replace the data of fragment
+            Object override = null;
+            if (0 == index && args.has(ATTR_DATA)) {
+                override = args.opt(ATTR_DATA);
+            } else if (args.has(ATTR_REF_DATA)) {
+                final JSONArray dataList = args.optJSONArray(ATTR_REF_DATA);
+                override = null != dataList ? dataList.opt(index) : null;
+            }
+            if (override instanceof CellData.Slice || override instanceof JSONObject) {
+                saveCellData(data, cell.getId(), override);
+            } else if (fragment.data.contains(prototype.getId())) {
+                data.copyRow(fragment.data, prototype.getId(), cell.getId());
+            }
+            if (prototype instanceof CellGroup) {
+                final CellGroup from = (CellGroup) prototype, to = (CellGroup) cell;
+                final int size = from.getCellCount();
+                for (int i = 0; i < size; i++) {
+                    final Cell subCell = copyPrototype(from.getCellAt(i), first, fragment, args, data);
+                    to.addCellInner(subCell, subCell.params());
+                }
+            }
+            return cell;
+        }
+
+        /**
+         * keep the args of sub tree, just bind it's params for measure.
+         * the params of reference are merged with the fragment in the same way with {@link #stamp}
+         */
+        private Cell createPlaceholder(JSONObject args, CellGroup parent, IdSequence ids) throws JSONException {
+            final Cell cell = new PlaceholderCell(ids.next(), args, version, resolution, fragmentArgs);
+            ids.skip(countCells(args) - 1);
+            if (null != fragmentArgs && args.has(ATTR_REF)) {
+                cell.setParams(obtainParams(parent, getFragment(args.getString(ATTR_REF)).args, args));
+            } else {
+                cell.setParams(obtainParams(parent, args, null));
+            }
+            return cell;
+        }
+
+        private Cell parseCell(JSONObject args, CellGroup parent, IdSequence ids, CellData data) throws JSONException {
             // type
+            final Cell cell = createCell(args, ids.next());
+            bindingArgs(cell, args);
+            // data
+            saveCellData(data, cell.getId(), args.opt(ATTR_DATA));
+            // cells, the items of recycling grid are created by itself
+            if (cell instanceof RecyclingGridGroup) {
+                if (args.has(ATTR_SUB_CELLS)) {
+                    Log.w(TAG, "'" + ATTR_SUB_CELLS + "' of '" + ATTR_GROUP_RECYCLING_GRID + "' is ignored !");
+                }
+            } else if (cell instanceof CellGroup) {
+                final CellGroup group = (CellGroup) cell;
+                final JSONArray subArgsList = args.optJSONArray(ATTR_SUB_CELLS);
+                final int size = null != subArgsList ? subArgsList.length() : 0;
+                for (int i = 0; i < size; i++) {
+                    final Cell subCell = _parse(subArgsList.getJSONObject(i), group, ids, data);
+                    group.addCell(subCell, subCell.params());
+                }
+            }
+            cell.setParams(obtainParams(parent, args, null));
+            return cell;
+        }
+
+        private Cell createCell(JSONObject args, int id) {
             final String type = args.optString(ATTR_TYPE);
-            final Cell cell;
+            // the recycled cells are the same with new
             if (ATTR_GROUP_GRID.equalsIgnoreCase(type)) {
-                cell = new GridGroup();
+                final GridGroup grid = null != cellPool ? cellPool.obtain(GridGroup.class, id) : null;
+                return null != grid ? grid : new GridGroup(id, 1, 1);
+            } else if (ATTR_GROUP_RECYCLING_GRID.equalsIgnoreCase(type)) {
+                return new RecyclingGridGroup(id, LinearGroup.VERTICAL);
             } else if (ATTR_GROUP_LINEAR.equalsIgnoreCase(type)) {
-                cell = new LinearGroup();
+                final LinearGroup linear = null != cellPool ? cellPool.obtain(LinearGroup.class, id) : null;
+                return null != linear ? linear : new LinearGroup(id, LinearGroup.VERTICAL);
             } else {
-                cell = new Cell();
+                final Cell cell = null != cellPool ? cellPool.obtain(Cell.class, id) : null;
+                return null != cell ? cell : new Cell(id);
             }
-            bindingArgs(cell, args);
-            // data
-            saveCellData(cell.getId(), args.optJSONObject(ATTR_DATA));
-            // cells
-            if (cell instanceof CellGroup) {
+        }
+
+        /**
+         * the group which has children in template, it's the same with {@link #parseCell}
+         */
+        private static boolean isGroup(JSONObject args) {
+            final String type = args.optString(ATTR_TYPE);
+            return ATTR_GROUP_GRID.equalsIgnoreCase(type) || ATTR_GROUP_LINEAR.equalsIgnoreCase(type);
+        }
+
+        /**
+         * count cells in the same way with {@link #_parse(JSONObject, CellGroup, IdSequence, CellData)}
+         */
+        private int countCells(JSONObject args) throws JSONException {
+            if (null != fragmentArgs && args.has(ATTR_REF)) {
+                return getFragment(args.getString(ATTR_REF)).count;
+            }
+            int count = 1;
+            if (isGroup(args)) {
                 final JSONArray subArgsList = args.optJSONArray(ATTR_SUB_CELLS);
                 final int size = null != subArgsList ? subArgsList.length() : 0;
                 for (int i = 0; i < size; i++) {
-                    _parse(subArgsList.getJSONObject(i), (CellGroup) cell);
+                    count += countCells(subArgsList.getJSONObject(i));
                 }
             }
-            final CellGroup.Params p = null != parent ? parent.getDefaultParams() : new CellGroup.Params();
-            bindingArgs(p, args);
-            if (null == parent) {
-                cell.setParams(p);
-            } else {
-                parent.addCell(cell, p);
+            return count;
+        }
+
+        private void saveCellData(CellData target, int cellId, Object data) {
+            if (data instanceof CellData.Slice) {
+                target.putSlice(cellId, (CellData.Slice) data);
+            } else if (data instanceof JSONObject) {
+                target.putJson(cellId, (JSONObject) data);
             }
-            return cell;
         }
 
-        private void saveCellData(int cellId, JSONObject json) {
-            final Bundle data = (null != json && json.length() > 0) ? new Bundle() : null;
-            if (null != data) {
-                Iterator<String> iterable = json.keys();
-                while (iterable.hasNext()) {
-                    String key = iterable.next();
-                    Object obj = json.opt(key);
-                    if (obj instanceof Integer) {
-                        data.putInt(key, (int) obj);
-                    } else if (obj instanceof Boolean) {
-                        data.putBoolean(key, (boolean) obj);
-                    } else if (obj instanceof String) {
-                        data.putString(key, (String) obj);
-                    } else if (obj instanceof Double) {
-                        data.putDouble(key, (double) obj);
-                    }
+        /**
+         * the params with the same attributes are shared, they are bound once
+         *
+         * @param override attributes of reference, they override the args of fragment
+         */
+        private CellGroup.Params obtainParams(CellGroup parent, JSONObject args, JSONObject override) {
+            final CellGroup.Params p = null != parent ? parent.getDefaultParams() : new CellGroup.Params();
+            final String[] keys = getParamsKeys(p.getClass());
+            final StringBuilder builder = new StringBuilder(p.getClass().getName());
+            appendParamsArgs(builder, keys, args);
+            if (null != override) {
+                appendParamsArgs(builder.append('|'), keys, override);
+            }
+            final String key = builder.toString();
+            CellGroup.Params shared = sharedParams.get(key);
+            if (null == shared) {
+                bindingArgs(p, args);
+                if (null != override) {
+                    bindingArgs(p, override, true);
                 }
-                if (null == dataMap) {
-                    dataMap = new SparseArray<>();
+                p.shared = true;
+                shared = sharedParams.putIfAbsent(key, p);
+                if (null == shared) {
+                    shared = p;
+                }
+            }
+            return shared;
+        }
+
+        private void appendParamsArgs(StringBuilder builder, String[] keys, JSONObject args) {
+            for (String key : keys) {
+                builder.append(',');
+                if (args.has(key)) {
+                    builder.append(args.opt(key));
                 }
-                dataMap.put(cellId, data);
             }
         }
 
         private void bindingArgs(final Object obj, final JSONObject json) {
+            bindingArgs(obj, json, false);
+        }
+
+        /**
+         * values are kept as design unit, {@link Attribute#fixedResolution()} is scaled at measure time
+         *
+         * @param override just bind the declared attributes, others keep their values
+         */
+        private void bindingArgs(final Object obj, final JSONObject json, final boolean override) {
             if (null == json || 0 == json.length()) {
                 return;
             }
-            final float screenHeight = Resources.getSystem().getDisplayMetrics().heightPixels;
-            final float scale = screenHeight / resolution;
             final int padding = json.optInt("padding", 0);
             final int margin = json.optInt("margin", 0);
             foreachAllField(obj.getClass(), new Filter<Field>() {
@@ -149,14 +493,15 @@ public final class TemplateFactory {
                             if (type == int.class) {
                                 int value = 0;
                                 if (key.startsWith("padding")) {
+                                    if (override && !json.has(key) && !json.has("padding")) return false;
                                     value = json.optInt(key, padding);
                                 } else if (key.startsWith("margin")) {
+                                    if (override && !json.has(key) && !json.has("margin")) return false;
                                     value = json.optInt(key, margin);
                                 } else if (json.has(key)) {
                                     value = json.optInt(key, 0);
-                                }
-                                if (attrInfo.fixedResolution()) {
-                                    value = (int) (value * scale);
+                                } else if (override) {
+                                    return false;
                                 }
                                 field.set(obj, value);
                             } else if (type == String.class && json.has(key)) {
@@ -178,7 +523,34 @@ public final class TemplateFactory {
         }
     }
 
-    private static void foreachAllField(Class cls, Filter<Field> filter) {
+    private static final ConcurrentHashMap<Class, String[]> PARAMS_KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * names of attributes in args which can change the params, include 'margin' and 'padding'
+     */
+    private static String[] getParamsKeys(Class cls) {
+        String[] keys = PARAMS_KEYS.get(cls);
+        if (null == keys) {
+            final List<String> list = new ArrayList<>();
+            foreachAllField(cls, new Filter<Field>() {
+                @Override
+                public boolean call(Field field) {
+                    final Attribute attrInfo = field.getAnnotation(Attribute.class);
+                    if (null != attrInfo) {
+                        list.add("".equals(attrInfo.value()) ? field.getName() : attrInfo.value());
+                    }
+                    return false;
+                }
+            });
+            list.add("margin");
+            list.add("padding");
+            keys = list.toArray(new String[list.size()]);
+            PARAMS_KEYS.put(cls, keys);
+        }
+        return keys;
+    }
+
+    static void foreachAllField(Class cls, Filter<Field> filter) {
         do {
             Field fields[] = cls.getDeclaredFields();
             if (fields.length > 0) {
@@ -191,25 +563,94 @@ public final class TemplateFactory {
         } while ((cls = cls.getSuperclass()) != null);
     }
 
+    private static final class Fragment {
+        final JSONObject args;
+        final Cell prototype;
+        final CellData data;
+        final int count;
+
+        Fragment(JSONObject args, Cell prototype, CellData data, int count) {
+            this.args = args;
+            this.prototype = prototype;
+            this.data = data;
+            this.count = count;
+        }
+    }
+
+    private static final class IdSequence {
+        int next;
+
+        IdSequence(int first) {
+            this.next = first;
+        }
+
+        int next() {
+            return next++;
+        }
+
+        void skip(int count) {
+            next += count;
+        }
+    }
+
+    private static final class SubTree {
+        final Cell cell;
+        final CellData data;
+
+        SubTree(Cell cell, CellData data) {
+            this.cell = cell;
+            this.data = data;
+        }
+    }
+
     private interface IParser {
         void parse(JSONObject json) throws JSONException;
 
-        SparseArray<Bundle> getData();
+        CellData getData();
 
         Cell getRoot();
     }
 
+    public interface OnTemplateStreamListener {
+        /**
+         * the root has no children now
+         */
+        void onStart(Template template);
+
+        void onCellLoaded(Template template, Cell cell, CellData data);
+
+        void onComplete(Template template);
+
+        void onError(Exception e);
+    }
+
     public static final class Template {
         public final int version;
         public final int targetResolution;
         public final Cell root;
+        public final CellData cellData;
+        /**
+         * {@link Template#cellData}
+         */
+        @Deprecated
         public final SparseArray<Bundle> data;
 
-        Template(int version, int targetResolution, Cell root, SparseArray<Bundle> data) {
+        /**
+         * the scale of design unit on the screen with special height
+         */
+        public float getScale(int screenHeight) {
+            return screenHeight * 1f / targetResolution;
+        }
+
+        Template(int version, int targetResolution, Cell root, CellData cellData) {
             this.version = version;
             this.targetResolution = targetResolution;
             this.root = root;
-            this.data = data;
+            this.cellData = cellData;
+            this.data = new CellData.BundleView(cellData);
+            if (null != root) {
+                root.targetResolution = targetResolution; // scale it even if it's set by CellLayout#setContentCell
+            }
         }
     }
 
@@ -0,0 +1,206 @@
+package org.pinwheel.view.celllayout;
+
+import android.util.Log;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Apply new template to the current cell tree with the minimal changes.
+ * Cells are matched by 'key', or by position and type if they have no key.
+ * The matched cell keeps it's id, so it's view and focus are kept.
+ *
+ * @author dnwang
+ * @version 2018/12/26,15:30
+ */
+final class TemplatePatcher {
+
+    private final CellData oldData, newData;
+    /**
+     * call before the style of cell changed
+     */
+    private final Filter<Cell> onStyleChange;
+
+    /**
+     * the root of sub trees which have been removed
+     */
+    final List<Cell> removedCells = new ArrayList<>();
+    /**
+     * the matched cells whose data has been changed
+     */
+    final List<Cell> changedCells = new ArrayList<>();
+
+    TemplatePatcher(CellData oldData, CellData newData, Filter<Cell> onStyleChange) {
+        this.oldData = oldData;
+        this.newData = newData;
+        this.onStyleChange = onStyleChange;
+    }
+
+    /**
+     * return false if the root can't be patched
+     */
+    boolean patch(Cell oldRoot, Cell newRoot) {
+        if (!isSame(oldRoot, newRoot)) {
+            return false;
+        }
+        patchCell(oldRoot, newRoot);
+        return true;
+    }
+
+    private void patchCell(Cell oldCell, Cell newCell) {
+        if (!isAttributesEquals(oldCell, newCell)) {
+            copyAttributes(newCell, oldCell);
+            // padding, divider and orientation are a part of structure
+            Cell.clearStructureHash(oldCell);
+        }
+        final CellGroup.Params oldP = oldCell.params(), newP = newCell.params();
+        if (null != newP && !isAttributesEquals(oldP, newP)) {
+            if (null != oldP && oldP.styleId != newP.styleId) {
+                onStyleChange.call(oldCell);
+            }
+            oldCell.setParams(newP);
+        }
+        if (null != oldData && !oldData.rowEquals(oldCell.getId(), newData, newCell.getId())) {
+            oldData.copyRow(newData, newCell.getId(), oldCell.getId());
+            changedCells.add(oldCell);
+        }
+        if (oldCell instanceof CellGroup) {
+            patchChildren((CellGroup) oldCell, (CellGroup) newCell);
+        }
+    }
+
+    private void patchChildren(CellGroup oldGroup, CellGroup newGroup) {
+        final int oldSize = oldGroup.getCellCount();
+        final HashMap<String, Cell> keyedCells = new HashMap<>();
+        final List<Cell> unkeyedCells = new ArrayList<>();
+        for (int i = 0; i < oldSize; i++) {
+            final Cell cell = oldGroup.getCellAt(i);
+            if (null != cell.getKey()) {
+                keyedCells.put(cell.getKey(), cell);
+            } else {
+                unkeyedCells.add(cell);
+            }
+        }
+        // match
+        final int newSize = newGroup.getCellCount();
+        final List<Cell> target = new ArrayList<>(newSize);
+        final Map<Cell, Boolean> reused = new IdentityHashMap<>();
+        int unkeyedIndex = 0;
+        for (int i = 0; i < newSize; i++) {
+            final Cell newCell = newGroup.getCellAt(i);
+            final Cell oldCell;
+            if (null != newCell.getKey()) {
+                oldCell = keyedCells.remove(newCell.getKey());
+            } else {
+                oldCell = unkeyedIndex < unkeyedCells.size() ? unkeyedCells.get(unkeyedIndex++) : null;
+            }
+            if (null != oldCell && isSame(oldCell, newCell)) {
+                patchCell(oldCell, newCell);
+                reused.put(oldCell, Boolean.TRUE);
+                target.add(oldCell);
+            } else {
+                copyData(newCell);
+                target.add(newCell);
+            }
+        }
+        if (oldSize == newSize && reused.size() == oldSize) {
+            boolean moved = false;
+            for (int i = 0; i < oldSize && !moved; i++) {
+                moved = oldGroup.getCellAt(i) != target.get(i);
+            }
+            if (!moved) {
+                return;
+            }
+        }
+        // remove
+        for (int i = 0; i < oldSize; i++) {
+            final Cell cell = oldGroup.getCellAt(i);
+            if (!reused.containsKey(cell)) {
+                removedCells.add(cell);
+            }
+        }
+        // insert and move, the children are replaced in one pass
+        oldGroup.removeCellsInner(0, oldSize);
+        newGroup.removeCellsInner(0, newSize);
+        oldGroup.addCellsInner(0, target);
+    }
+
+    /**
+     * the data of new sub tree
+     */
+    private void copyData(Cell cell) {
+        if (null == oldData) {
+            return;
+        }
+        if (cell instanceof CellGroup) {
+            ((CellGroup) cell).foreachAllCells(true, new Filter<Cell>() {
+                @Override
+                public boolean call(Cell cell) {
+                    oldData.copyRow(newData, cell.getId(), cell.getId());
+                    return false;
+                }
+            });
+        } else {
+            oldData.copyRow(newData, cell.getId(), cell.getId());
+        }
+    }
+
+    private static boolean isSame(Cell oldCell, Cell newCell) {
+        if (oldCell.getClass() != newCell.getClass() || oldCell instanceof PlaceholderCell) {
+            return false;
+        }
+        final String key = oldCell.getKey();
+        return null == key ? null == newCell.getKey() : key.equals(newCell.getKey());
+    }
+
+    private static void copyAttributes(final Object from, final Object to) {
+        TemplateFactory.foreachAllField(from.getClass(), new Filter<Field>() {
+            @Override
+            public boolean call(Field field) {
+                if (field.isAnnotationPresent(Attribute.class)) {
+                    field.setAccessible(true);
+                    try {
+                        field.set(to, field.get(from));
+                    } catch (IllegalAccessException e) {
+                        Log.e(CellLayout.TAG, "[TemplatePatcher] can't copy field [" + field.getName() + "]! " + e.getMessage());
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    private static boolean isAttributesEquals(final Object a, final Object b) {
+        if (null == a || null == b || a.getClass() != b.getClass()) {
+            return a == b;
+        }
+        final boolean[] equals = new boolean[]{true};
+        TemplateFactory.foreachAllField(a.getClass(), new Filter<Field>() {
+            @Override
+            public boolean call(Field field) {
+                if (equals[0] && field.isAnnotationPresent(Attribute.class)) {
+                    field.setAccessible(true);
+                    try {
+                        final Object va = field.get(a), vb = field.get(b);
+                        if (null == va ? null != vb : !va.equals(vb)) {
+                            equals[0] = false;
+                        }
+                    } catch (IllegalAccessException e) {
+                        equals[0] = false;
+                    }
+                }
+                return !equals[0];
+            }
+        });
+        return equals[0];
+    }
+
+}
@@ -0,0 +1,404 @@
+package org.pinwheel.view.celllayout;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Json reader for template, the value of 'data' will not be decoded but kept as {@link CellData.Slice}.
+ * The children of root can be notified one by one while the template is still reading from stream.
+ * Only the structure is walked here, names and plain values are decoded by {@link JSONTokener}.
+ *
+ * @author dnwang
+ * @version 2018/12/22,14:20
+ */
+final class TemplateReader {
+
+    static final String ATTR_DATA = "data";
+    static final String ATTR_REF_DATA = "$data";
+    static final String ATTR_ROOT = "root";
+    static final String ATTR_SUB_CELLS = "cells";
+
+    private static final int LEVEL_DOCUMENT = 0;
+    private static final int LEVEL_ROOT = 1;
+    private static final int LEVEL_OTHER = 2;
+
+    private final Source source;
+    private int pos;
+
+    private RootListener listener;
+    private JSONObject document;
+    private boolean rootBegun;
+
+    TemplateReader(String json) {
+        this.source = new Source(json.toCharArray());
+        this.pos = 0;
+    }
+
+    TemplateReader(Reader reader) {
+        this.source = new Source(reader);
+        this.pos = 0;
+    }
+
+    JSONObject readDocument() throws JSONException {
+        return readDocument(null);
+    }
+
+    /**
+     * the children of root will be notified by listener instead of putting in the document,
+     * so the other attributes of document and root must be declared before them.
+     */
+    JSONObject readDocument(RootListener listener) throws JSONException {
+        this.listener = listener;
+        final int c = nextClean();
+        if ('{' != c) {
+            throw syntaxError("template must begin with '{'");
+        }
+        return readObject(LEVEL_DOCUMENT);
+    }
+
+    private Object readValue() throws JSONException {
+        final int c = peekClean();
+        if ('{' == c) {
+            nextClean();
+            return readObject(LEVEL_OTHER);
+        } else if ('[' == c) {
+            nextClean();
+            return readArray();
+        }
+        return readScalar();
+    }
+
+    /**
+     * the first '{' has been consumed
+     */
+    private JSONObject readObject(int level) throws JSONException {
+        final JSONObject object = new JSONObject();
+        if (LEVEL_DOCUMENT == level) {
+            document = object;
+        }
+        int c = nextClean();
+        if ('}' == c) {
+            return endObject(level, object);
+        }
+        pos--;
+        while (true) {
+            final String name = String.valueOf(readScalar()); // same with org.json
+            if (':' != nextClean()) {
+                throw syntaxError("expected ':' after " + name);
+            }
+            if (object.has(name)) {
+                throw syntaxError("duplicate key \"" + name + "\"");
+            }
+            if (rootBegun && LEVEL_OTHER != level) {
+                // the cells of root have been notified, it's too late to apply it
+                throw syntaxError("\"" + name + "\" must be declared before the cells of root");
+            }
+            final int next = peekClean();
+            if (ATTR_DATA.equals(name) && '{' == next) {
+                object.put(name, readSlice());
+            } else if (ATTR_REF_DATA.equals(name) && '[' == next) {
+                nextClean();
+                object.put(name, readSliceArray());
+            } else if (null != listener && LEVEL_DOCUMENT == level && ATTR_ROOT.equals(name) && '{' == next) {
+                nextClean();
+                object.put(name, readObject(LEVEL_ROOT));
+            } else if (null != listener && LEVEL_ROOT == level && ATTR_SUB_CELLS.equals(name) && '[' == next) {
+                nextClean();
+                beginRoot(object);
+                readRootCells();
+            } else {
+                object.put(name, readValue());
+            }
+            c = nextClean();
+            if ('}' == c) {
+                return endObject(level, object);
+            } else if (',' != c && ';' != c) {
+                throw syntaxError("unterminated object");
+            }
+        }
+    }
+
+    private JSONObject endObject(int level, JSONObject object) throws JSONException {
+        if (LEVEL_ROOT == level) {
+            beginRoot(object);
+        }
+        return object;
+    }
+
+    private void beginRoot(JSONObject root) throws JSONException {
+        if (!rootBegun) {
+            rootBegun = true;
+            listener.onRootBegin(document, root);
+        }
+    }
+
+    /**
+     * the first '[' has been consumed, notify every child as soon as it's completed
+     */
+    private void readRootCells() throws JSONException {
+        int c = nextClean();
+        if (']' == c) {
+            return;
+        }
+        pos--;
+        while (true) {
+            if ('{' != nextClean()) {
+                throw syntaxError("expected object of cell");
+            }
+            listener.onRootCell(readObject(LEVEL_OTHER));
+            c = nextClean();
+            if (']' == c) {
+                return;
+            } else if (',' != c && ';' != c) {
+                throw syntaxError("unterminated array");
+            }
+        }
+    }
+
+    /**
+     * the first '[' has been consumed
+     */
+    private JSONArray readArray() throws JSONException {
+        final JSONArray array = new JSONArray();
+        int c = nextClean();
+        if (']' == c) {
+            return array;
+        }
+        pos--;
+        while (true) {
+            array.put(readValue());
+            c = nextClean();
+            if (']' == c) {
+                return array;
+            } else if (',' != c && ';' != c) {
+                throw syntaxError("unterminated array");
+            }
+        }
+    }
+
+    /**
+     * the first '[' has been consumed, objects in array are kept as slices
+     */
+    private JSONArray readSliceArray() throws JSONException {
+        final JSONArray array = new JSONArray();
+        int c = nextClean();
+        if (']' == c) {
+            return array;
+        }
+        pos--;
+        while (true) {
+            array.put('{' == peekClean() ? readSlice() : readValue());
+            c = nextClean();
+            if (']' == c) {
+                return array;
+            } else if (',' != c && ';' != c) {
+                throw syntaxError("unterminated array");
+            }
+        }
+    }
+
+    private CellData.Slice readSlice() throws JSONException {
+        final int start = pos;
+        skipValue();
+        return new CellData.Slice(source, start, pos);
+    }
+
+    /**
+     * skip a complete object or array without decode
+     */
+    private void skipValue() throws JSONException {
+        int depth = 0;
+        do {
+            final int c = nextClean();
+            switch (c) {
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    break;
+                case '"':
+                case '\'':
+                    skipString((char) c);
+                    break;
+                case -1:
+                    throw syntaxError("unexpected end of template");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * string, number, boolean or null, it's decoded by {@link JSONTokener}
+     */
+    private Object readScalar() throws JSONException {
+        final int c = nextClean();
+        if (-1 == c) {
+            throw syntaxError("unexpected end of template");
+        }
+        final int start = pos - 1;
+        if ('"' == c || '\'' == c) {
+            skipString((char) c);
+        } else {
+            while (source.has(pos)) {
+                final char ch = source.chars[pos];
+                if (ch == ',' || ch == '}' || ch == ']' || ch == ':' || ch == ';'
+                        || ch == '/' || ch == '#' || ch <= ' ') {
+                    break;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw syntaxError("expected literal value");
+            }
+        }
+        return new JSONTokener(source.substring(start, pos)).nextValue();
+    }
+
+    private void skipString(char quote) throws JSONException {
+        while (source.has(pos)) {
+            final char c = source.chars[pos++];
+            if (quote == c) {
+                return;
+            } else if ('\\' == c) {
+                pos++;
+            }
+        }
+        throw syntaxError("unterminated string");
+    }
+
+    private int peekClean() throws JSONException {
+        final int c = nextClean();
+        if (-1 != c) {
+            pos--;
+        }
+        return c;
+    }
+
+    /**
+     * skip whitespace and comments, return -1 at the end
+     */
+    private int nextClean() throws JSONException {
+        while (source.has(pos)) {
+            final char c = source.chars[pos++];
+            if (c <= ' ') {
+                continue;
+            }
+            if ('#' == c) {
+                skipToEndOfLine();
+            } else if ('/' == c && source.has(pos) && '/' == source.chars[pos]) {
+                skipToEndOfLine();
+            } else if ('/' == c && source.has(pos) && '*' == source.chars[pos]) {
+                pos++;
+                boolean closed = false;
+                while (source.has(pos + 1)) {
+                    if ('*' == source.chars[pos] && '/' == source.chars[pos + 1]) {
+                        pos += 2;
+                        closed = true;
+                        break;
+                    }
+                    pos++;
+                }
+                if (!closed) {
+                    throw syntaxError("unterminated comment");
+                }
+            } else {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private void skipToEndOfLine() throws JSONException {
+        while (source.has(pos)) {
+            final char c = source.chars[pos++];
+            if ('\r' == c || '\n' == c) {
+                return;
+            }
+        }
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + pos);
+    }
+
+    interface RootListener {
+        /**
+         * the fields of document and root which are declared before 'cells' have been read
+         */
+        void onRootBegin(JSONObject document, JSONObject root) throws JSONException;
+
+        void onRootCell(JSONObject args) throws JSONException;
+    }
+
+    /**
+     * chars of template, keep alive until all slices has been released.
+     * it's copied to a larger array when reading from stream, the indexes of chars which have been read
+     * are not changed, so slices are still valid. other threads must read it with the lock of source.
+     */
+    static final class Source {
+        private Reader reader;
+        char[] chars;
+        int length;
+
+        Source(char[] chars) {
+            this.chars = chars;
+            this.length = chars.length;
+        }
+
+        Source(Reader reader) {
+            this.reader = reader;
+            this.chars = new char[8 * 1024];
+            this.length = 0;
+        }
+
+        /**
+         * make sure the char at index is available, read more from stream if necessary
+         */
+        boolean has(int index) throws JSONException {
+            while (index >= length) {
+                if (null == reader || !fill()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized boolean fill() throws JSONException {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            final int count;
+            try {
+                count = reader.read(chars, length, chars.length - length);
+            } catch (IOException e) {
+                throw new JSONException("can't read template ! " + e.getMessage());
+            }
+            if (count < 0) {
+                reader = null;
+                return false;
+            }
+            length += count;
+            return true;
+        }
+
+        /**
+         * slices may be decoded on other thread while the stream is still reading
+         */
+        synchronized String substring(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+    }
+
+}
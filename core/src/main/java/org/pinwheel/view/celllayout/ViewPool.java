@@ -20,9 +20,15 @@ final class ViewPool {
     private int FLAG_FOCUSABLE = 1;
 
     private final List<Holder> caches;
+    private final CellLayout.ViewAdapter adapter;
+    private boolean bound = false;
 
-    ViewPool() {
+    /**
+     * the view keeps the last bound cell in pool, it's recycled by adapter when it's given to other cell or dropped
+     */
+    ViewPool(CellLayout.ViewAdapter adapter) {
         caches = new ArrayList<>();
+        this.adapter = adapter;
     }
 
     int size() {
@@ -34,11 +40,30 @@ final class ViewPool {
     }
 
     View obtain(Cell cell, boolean force) {
+        return obtain(cell, -1, force);
+    }
+
+    /**
+     * the view which was bound to the cell is preferred, then the view of the same size
+     *
+     * @param version version of cell's data, -1 if it's unknown, see {@link CellData#getVersion(int)}
+     */
+    View obtain(Cell cell, int version, boolean force) {
+        bound = false;
         if (caches.isEmpty()) {
             return null;
         }
         Holder holder = null;
         if (null != cell) {
+            for (Holder h : caches) {
+                if (h.cell == cell && h.cellId == cell.getId()) {
+                    holder = h;
+                    bound = version >= 0 && version == h.version;
+                    break;
+                }
+            }
+        }
+        if (null == holder && null != cell) {
             for (Holder h : caches) {
                 View v = h.view;
                 if (v.getMeasuredWidth() == cell.width() && v.getMeasuredHeight() == cell.height()) {
@@ -53,6 +78,9 @@ final class ViewPool {
             holder = caches.remove(0);
         }
         if (null != holder) {
+            if (!bound) {
+                release(holder);
+            }
             // restore state
             holder.view.setFocusable((holder.state & FLAG_FOCUSABLE) != 0);
             return holder.view;
@@ -61,7 +89,21 @@ final class ViewPool {
         }
     }
 
+    /**
+     * the last obtained view was bound to the cell and the data isn't changed, it needn't bind again
+     */
+    boolean isBound() {
+        return bound;
+    }
+
     void recycle(final View view) {
+        recycle(view, null, -1);
+    }
+
+    /**
+     * @param cell the view is still bound to cell until it's obtained by other cell
+     */
+    void recycle(final View view, Cell cell, int version) {
         if (null == view) return;
         if (view.hasFocus()) {
             view.clearFocus();
@@ -70,6 +112,11 @@ final class ViewPool {
         view.setScaleY(SCALE_MIN);
         final Holder holder = new Holder();
         holder.view = view;
+        if (null != cell) {
+            holder.cell = cell;
+            holder.cellId = cell.getId();
+            holder.version = version;
+        }
         if (view.isFocusable()) {
             view.setFocusable(false);
             holder.state |= FLAG_FOCUSABLE;
@@ -82,15 +129,38 @@ final class ViewPool {
         final int count = caches.size() - size;
         for (int i = 0; i < count; i++) {
             Holder h = caches.remove(0);
+            release(h);
             if (null != filter) {
+                // restore state, the view maybe reused by shared pool
+                h.view.setFocusable((h.state & FLAG_FOCUSABLE) != 0);
                 filter.call(h.view);
             }
         }
     }
 
+    /**
+     * the cell is removed or changed, it will be bound again
+     */
+    void release(Cell cell) {
+        for (Holder h : caches) {
+            if (h.cell == cell) {
+                release(h);
+            }
+        }
+    }
+
+    private void release(Holder h) {
+        if (null != h.cell) {
+            adapter.onViewRecycled(h.cell, h.view);
+            h.cell = null;
+        }
+    }
+
     private static class Holder {
         View view;
         int state;
+        Cell cell; // last bound cell
+        int cellId, version;
 
         @Override
         public boolean equals(Object o) {
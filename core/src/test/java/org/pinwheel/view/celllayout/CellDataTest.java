@@ -0,0 +1,181 @@
+package org.pinwheel.view.celllayout;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Shared strings, lazy decoding and release of rows in cell data.
+ *
+ * @author dnwang
+ * @version 2019/01/03,11:00
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CellDataTest {
+
+    @Test
+    public void testStringsAreInterned() {
+        final CellData data = new CellData();
+        data.putString(1, "title", new String("abc"));
+        data.putString(2, "title", new String("abc"));
+        data.putString(3, "other", new String("abc"));
+        assertSame(data.getString(1, "title"), data.getString(2, "title"));
+        assertSame(data.getString(1, "title"), data.getString(3, "other"));
+    }
+
+    @Test
+    public void testStringIsDroppedWithLastReference() {
+        final CellData data = new CellData();
+        final String first = new String("abc");
+        data.putString(1, "title", first);
+        data.putString(2, "title", new String("abc"));
+        data.remove(1);
+        // still referenced by cell 2
+        data.putString(3, "title", new String("abc"));
+        assertSame(first, data.getString(3, "title"));
+        data.remove(2);
+        data.putString(3, "title", "other"); // the last reference is overridden
+        final String second = new String("abc");
+        data.putString(4, "title", second);
+        assertSame(second, data.getString(4, "title"));
+        assertEquals("other", data.getString(3, "title"));
+    }
+
+    @Test
+    public void testNullRemovesValue() throws JSONException {
+        final CellData data = new CellData();
+        data.putString(1, "title", "abc");
+        data.putInt(1, "count", 3);
+        data.update(1, new JSONObject("{\"title\": null}"));
+        assertFalse(data.has(1, "title"));
+        assertEquals(3, data.getInt(1, "count"));
+        final String value = new String("abc");
+        data.putString(2, "title", value);
+        assertSame(value, data.getString(2, "title"));
+    }
+
+    @Test
+    public void testTypes() {
+        final CellData data = new CellData();
+        data.putInt(1, "i", 3);
+        data.putDouble(1, "d", 1.5);
+        data.putBoolean(1, "b", true);
+        assertEquals(3, data.getInt(1, "i"));
+        assertEquals(3, data.getDouble(1, "i"), 0);
+        assertEquals(1.5, data.getDouble(1, "d"), 0);
+        assertTrue(data.getBoolean(1, "b"));
+        // wrong type and missing key return the default
+        assertEquals(-1, data.getInt(1, "d", -1));
+        assertNull(data.getString(1, "i"));
+        assertEquals(7, data.getInt(2, "i", 7));
+    }
+
+    @Test
+    public void testSliceIsDecodedAtFirstAccess() {
+        final CellData data = new CellData();
+        data.putSlice(1, slice("{\"title\": \"a\", \"n\": 3, \"d\": 1.5, \"b\": true}"));
+        final int version = data.getVersion(1);
+        assertTrue(0 != version);
+        assertEquals("a", data.getString(1, "title"));
+        assertEquals(3, data.getInt(1, "n"));
+        assertEquals(1.5, data.getDouble(1, "d"), 0);
+        assertTrue(data.getBoolean(1, "b"));
+        // decoding isn't a change
+        assertEquals(version, data.getVersion(1));
+    }
+
+    @Test
+    public void testReleaseKeptSlice() throws JSONException {
+        final CellData data = new CellData();
+        data.setKeepSlices(true);
+        data.putSlice(1, slice("{\"title\": \"a\"}"));
+        final int version = data.getVersion(1);
+        final String title = data.getString(1, "title");
+        data.release(1);
+        assertEquals("a", data.getString(1, "title"));
+        assertEquals(version, data.getVersion(1));
+        // the released string is dropped, it's decoded again
+        assertNotSame(title, data.getString(1, "title"));
+        // updated row is different with source
+        data.update(1, new JSONObject("{\"title\": \"b\"}"));
+        data.release(1);
+        assertEquals("b", data.getString(1, "title"));
+    }
+
+    @Test
+    public void testReleaseWithoutSlice() {
+        final CellData data = new CellData();
+        data.putSlice(1, slice("{\"title\": \"a\"}"));
+        assertEquals("a", data.getString(1, "title"));
+        data.release(1); // slice was dropped after decoding
+        assertEquals("a", data.getString(1, "title"));
+        data.putString(2, "title", "b");
+        data.release(2);
+        assertEquals("b", data.getString(2, "title"));
+    }
+
+    @Test
+    public void testRemoveAndReuseRow() {
+        final CellData data = new CellData();
+        data.putString(1, "title", "a");
+        data.remove(1);
+        assertFalse(data.contains(1));
+        assertEquals(0, data.getVersion(1));
+        data.putInt(2, "n", 1);
+        assertFalse(data.has(2, "title"));
+        assertEquals(1, data.size());
+    }
+
+    @Test
+    public void testRowEquals() {
+        final CellData a = new CellData(), b = new CellData();
+        a.putSlice(1, slice("{\"title\": \"a\"}"));
+        b.putSlice(2, slice("{\"title\": \"a\"}"));
+        b.putSlice(3, slice("{\"title\": \"b\"}"));
+        assertTrue(a.rowEquals(1, b, 2));
+        assertFalse(a.rowEquals(1, b, 3));
+        // decoded rows are compared by values
+        a.putInt(4, "n", 1);
+        b.putInt(5, "n", 1);
+        b.putInt(6, "n", 1);
+        b.putInt(6, "m", 1);
+        assertTrue(a.rowEquals(4, b, 5));
+        assertFalse(a.rowEquals(4, b, 6));
+        assertTrue(a.rowEquals(7, b, 7));
+        assertFalse(a.rowEquals(1, b, 7));
+    }
+
+    @Test
+    public void testCopyAndMerge() {
+        final CellData a = new CellData(), b = new CellData();
+        b.putString(1, "title", "a");
+        b.putSlice(2, slice("{\"title\": \"b\"}"));
+        a.copyRow(b, 1, 10);
+        assertEquals("a", a.getString(10, "title"));
+        a.copyRow(b, 3, 10); // no row, clear it
+        assertFalse(a.has(10, "title"));
+        a.merge(b);
+        assertEquals(3, a.size());
+        assertEquals("a", a.getString(1, "title"));
+        assertEquals("b", a.getString(2, "title"));
+    }
+
+    private static CellData.Slice slice(String json) {
+        final char[] chars = json.toCharArray();
+        return new CellData.Slice(new TemplateReader.Source(chars), 0, chars.length);
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.pinwheel.view.celllayout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Open addressing map and set of cells.
+ *
+ * @author dnwang
+ * @version 2019/01/03,10:30
+ */
+public class CellMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        final CellMap<String> map = new CellMap<>();
+        final Cell a = new Cell(5);
+        assertEquals(0, map.put(a, "a"));
+        assertEquals("a", map.get(a));
+        // the same id is the same key
+        assertEquals(0, map.put(new Cell(5), "b"));
+        assertEquals(1, map.size());
+        assertEquals("b", map.get(a));
+        assertNull(map.get(new Cell(6)));
+        assertNull(map.get(null));
+    }
+
+    @Test
+    public void testProbing() {
+        // load factor is about 0.5 after growing, the neighbours collide a lot
+        final CellMap<Integer> map = new CellMap<>(4);
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            map.put(new Cell(idOf(i)), i);
+        }
+        assertEquals(count, map.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new Cell(idOf(i))));
+            assertEquals(idOf(i), map.keyAt(map.indexOfId(idOf(i))).getId());
+        }
+        assertEquals(-1, map.indexOfId(idOf(count)));
+    }
+
+    @Test
+    public void testBackwardShiftDelete() {
+        final CellMap<Integer> map = new CellMap<>();
+        final int count = 1000;
+        for (int i = 0; i < count; i++) {
+            map.put(new Cell(idOf(i)), i);
+        }
+        // the entries after the hole must still be found without tombstone
+        for (int i = 0; i < count; i += 3) {
+            assertEquals(Integer.valueOf(i), map.remove(new Cell(idOf(i))));
+        }
+        for (int i = 0; i < count; i++) {
+            if (0 == i % 3) {
+                assertFalse(map.containsKey(new Cell(idOf(i))));
+            } else {
+                assertEquals(Integer.valueOf(i), map.get(new Cell(idOf(i))));
+            }
+        }
+        for (int i = 0; i < count; i += 3) {
+            map.put(new Cell(idOf(i)), -i);
+        }
+        assertEquals(count, map.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(0 == i % 3 ? -i : i), map.get(new Cell(idOf(i))));
+        }
+    }
+
+    @Test
+    public void testSameWithHashMap() {
+        final Random random = new Random(2019);
+        final CellMap<Integer> map = new CellMap<>();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final int id = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), map.remove(new Cell(id)));
+            } else {
+                expected.put(id, i);
+                map.put(new Cell(id), i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int id = 0; id < 300; id++) {
+            assertEquals(expected.get(id), map.get(new Cell(id)));
+        }
+    }
+
+    @Test
+    public void testRemoveBackwardWhileIterating() {
+        final CellMap<Integer> map = new CellMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new Cell(i), i);
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (0 == map.valueAt(i) % 2) {
+                map.removeAt(i);
+            }
+        }
+        assertEquals(50, map.size());
+        final List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(map.keyAt(i).getId(), (int) map.valueAt(i));
+            values.add(map.valueAt(i));
+        }
+        for (int i = 1; i < 100; i += 2) {
+            assertTrue(values.contains(i));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(new Cell(1)));
+    }
+
+    @Test
+    public void testSet() {
+        final CellSet set = new CellSet(4);
+        final Cell a = new Cell(1);
+        assertTrue(set.add(a));
+        assertFalse(set.add(new Cell(1)));
+        for (int i = 2; i <= 64; i++) {
+            assertTrue(set.add(new Cell(i)));
+        }
+        assertEquals(64, set.size());
+        assertSame(a, set.keyAt(set.indexOfKey(a)));
+        set.remove(a);
+        assertFalse(set.containsKey(a));
+        assertTrue(set.containsKey(new Cell(64)));
+    }
+
+    private static int idOf(int i) {
+        return 1 + i * 31;
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.pinwheel.view.celllayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Sizes of the same structure are restored, any change of structure is measured again.
+ *
+ * @author dnwang
+ * @version 2019/01/03,14:00
+ */
+public class MeasureCacheTest {
+
+    @Test
+    public void testSameStructureIsRestored() {
+        final GridGroup a = grid(10), b = grid(10);
+        MeasureCache.measure(a, 220, 100);
+        MeasureCache.measure(b, 220, 100);
+        assertEquals(a.structureHash, b.structureHash);
+        for (int i = 0; i < 2; i++) {
+            final Cell cell = b.getCellAt(i);
+            assertTrue(cell.isMeasured());
+            assertEquals(100, cell.width());
+            assertEquals(80, cell.height());
+            assertEquals(a.getCellAt(i).width(), cell.width());
+        }
+    }
+
+    @Test
+    public void testPaddingIsPartOfStructure() {
+        final GridGroup a = grid(0), b = grid(10);
+        MeasureCache.measure(a, 220, 100);
+        MeasureCache.measure(b, 220, 100);
+        assertNotEquals(a.structureHash, b.structureHash);
+        assertEquals(110, a.getCellAt(0).width());
+        assertEquals(100, b.getCellAt(0).width());
+    }
+
+    @Test
+    public void testSizeAndScaleArePartOfKey() {
+        final GridGroup a = grid(10), b = grid(10), c = grid(10);
+        MeasureCache.measure(a, 220, 100);
+        MeasureCache.measure(b, 420, 100);
+        c.setScale(2f);
+        MeasureCache.measure(c, 220, 100);
+        assertEquals(100, a.getCellAt(0).width());
+        assertEquals(200, b.getCellAt(0).width());
+        assertEquals(90, c.getCellAt(0).width());
+        assertEquals(2f, c.getCellAt(0).getScale(), 0);
+    }
+
+    @Test
+    public void testSettersClearStructureHash() {
+        final LinearGroup root = new LinearGroup(LinearGroup.VERTICAL);
+        final GridGroup grid = grid(0);
+        root.addCell(grid, new LinearGroup.Params(0, 100));
+        final Cell cell = grid.getCellAt(0);
+        assertTrue(MeasureCache.isCacheable(root));
+        long hash = root.structureHash;
+        grid.setDivider(4);
+        assertEquals(MeasureCache.NONE, grid.structureHash);
+        assertEquals(MeasureCache.NONE, root.structureHash);
+        assertTrue(MeasureCache.isCacheable(root));
+        assertNotEquals(hash, root.structureHash);
+
+        hash = root.structureHash;
+        cell.setPadding(1, 2, 3, 4);
+        assertEquals(MeasureCache.NONE, root.structureHash);
+        assertTrue(MeasureCache.isCacheable(root));
+        assertNotEquals(hash, root.structureHash);
+
+        hash = root.structureHash;
+        cell.editParams().marginLeft = 5;
+        assertEquals(MeasureCache.NONE, root.structureHash);
+        assertTrue(MeasureCache.isCacheable(root));
+        assertNotEquals(hash, root.structureHash);
+
+        hash = root.structureHash;
+        root.setOrientation(LinearGroup.HORIZONTAL);
+        assertEquals(MeasureCache.NONE, root.structureHash);
+        assertTrue(MeasureCache.isCacheable(root));
+        assertNotEquals(hash, root.structureHash);
+
+        hash = root.structureHash;
+        root.setDivider(6);
+        assertTrue(MeasureCache.isCacheable(root));
+        assertNotEquals(hash, root.structureHash);
+    }
+
+    @Test
+    public void testCustomCellIsNotCacheable() {
+        final GridGroup grid = grid(0);
+        assertTrue(MeasureCache.isCacheable(grid));
+        grid.addCell(new Cell() {
+            @Override
+            protected void measure(int width, int height) {
+                super.measure(width / 2, height / 2);
+            }
+        }, new GridGroup.Params(0, 0, 1, 1));
+        assertFalse(MeasureCache.isCacheable(grid));
+        MeasureCache.measure(grid, 220, 100);
+        assertEquals(55, grid.getCellAt(2).width());
+    }
+
+    /**
+     * one row and two columns
+     */
+    private static GridGroup grid(int padding) {
+        final GridGroup grid = new GridGroup(1, 2);
+        grid.setPadding(padding, padding, padding, padding);
+        grid.addCell(new Cell(), new GridGroup.Params(0, 0, 1, 1));
+        grid.addCell(new Cell(), new GridGroup.Params(1, 0, 1, 1));
+        return grid;
+    }
+
+}
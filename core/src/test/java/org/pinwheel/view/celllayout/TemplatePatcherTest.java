@@ -0,0 +1,147 @@
+package org.pinwheel.view.celllayout;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Match cells of new template to the current tree by key, or by position and type.
+ *
+ * @author dnwang
+ * @version 2019/01/03,11:30
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TemplatePatcherTest {
+
+    private final List<Cell> styleChanged = new ArrayList<>();
+
+    @Test
+    public void testSameTemplateIsKept() throws JSONException {
+        final String cells = "{\"key\": \"a\", \"height\": 10, \"data\": {\"t\": \"x\"}}, {\"height\": 20}";
+        final TemplateFactory.Template old = load(cells), template = load(cells);
+        final CellGroup root = (CellGroup) old.root;
+        final Cell a = root.getCellAt(0), b = root.getCellAt(1);
+        final TemplatePatcher patcher = patch(old, template);
+        assertSame(a, root.getCellAt(0));
+        assertSame(b, root.getCellAt(1));
+        assertTrue(patcher.removedCells.isEmpty());
+        assertTrue(patcher.changedCells.isEmpty());
+        assertTrue(styleChanged.isEmpty());
+    }
+
+    @Test
+    public void testKeyedCellsAreMoved() throws JSONException {
+        final TemplateFactory.Template old = load("{\"key\": \"a\"}, {\"key\": \"b\"}, {\"key\": \"c\"}");
+        final CellGroup root = (CellGroup) old.root;
+        final Cell a = root.getCellAt(0), b = root.getCellAt(1), c = root.getCellAt(2);
+        final TemplatePatcher patcher = patch(old, load("{\"key\": \"c\"}, {\"key\": \"a\"}, {\"key\": \"b\"}"));
+        assertEquals(3, root.getCellCount());
+        assertSame(c, root.getCellAt(0));
+        assertSame(a, root.getCellAt(1));
+        assertSame(b, root.getCellAt(2));
+        assertEquals(1, a.getIndexInParent());
+        assertSame(root, c.getParent());
+        assertTrue(patcher.removedCells.isEmpty());
+    }
+
+    @Test
+    public void testKeyedCellsAreRemovedAndInserted() throws JSONException {
+        final TemplateFactory.Template old = load("{\"key\": \"a\"}, {\"key\": \"b\"}");
+        final CellGroup root = (CellGroup) old.root;
+        final Cell a = root.getCellAt(0), b = root.getCellAt(1);
+        final TemplateFactory.Template template = load("{\"key\": \"b\"}, {\"key\": \"d\", \"data\": {\"t\": \"new\"}}");
+        final Cell d = ((CellGroup) template.root).getCellAt(1);
+        final TemplatePatcher patcher = patch(old, template);
+        assertEquals(2, root.getCellCount());
+        assertSame(b, root.getCellAt(0));
+        assertSame(d, root.getCellAt(1));
+        assertSame(root, d.getParent());
+        assertEquals(1, patcher.removedCells.size());
+        assertSame(a, patcher.removedCells.get(0));
+        // the data of new cell is copied to the current store
+        assertEquals("new", old.cellData.getString(d.getId(), "t"));
+    }
+
+    @Test
+    public void testUnkeyedCellsAreMatchedByPositionAndType() throws JSONException {
+        final TemplateFactory.Template old = load("{}, {\"type\": \"linear\", \"orientation\": 0}, {}");
+        final CellGroup root = (CellGroup) old.root;
+        final Cell first = root.getCellAt(0), linear = root.getCellAt(1), last = root.getCellAt(2);
+        final TemplateFactory.Template template = load("{}, {\"type\": \"grid\"}, {}, {}");
+        final TemplatePatcher patcher = patch(old, template);
+        assertEquals(4, root.getCellCount());
+        assertSame(first, root.getCellAt(0));
+        assertTrue(root.getCellAt(1) instanceof GridGroup);
+        assertSame(last, root.getCellAt(2));
+        assertNotSame(last, root.getCellAt(3));
+        assertEquals(1, patcher.removedCells.size());
+        assertSame(linear, patcher.removedCells.get(0));
+    }
+
+    @Test
+    public void testKeyIsNotMatchedByPosition() throws JSONException {
+        final TemplateFactory.Template old = load("{\"key\": \"a\"}, {}");
+        final CellGroup root = (CellGroup) old.root;
+        final Cell unkeyed = root.getCellAt(1);
+        final TemplatePatcher patcher = patch(old, load("{}, {\"key\": \"b\"}"));
+        assertSame(unkeyed, root.getCellAt(0));
+        assertEquals("b", root.getCellAt(1).getKey());
+        assertEquals(1, patcher.removedCells.size());
+        assertEquals("a", patcher.removedCells.get(0).getKey());
+    }
+
+    @Test
+    public void testAttributesDataAndStyleArePatched() throws JSONException {
+        final TemplateFactory.Template old = load("{\"key\": \"a\", \"style\": 1, \"padding\": 5, \"data\": {\"t\": \"x\"}}");
+        final CellGroup root = (CellGroup) old.root;
+        final Cell a = root.getCellAt(0);
+        final TemplatePatcher patcher = patch(old, load("{\"key\": \"a\", \"style\": 2, \"padding\": 8, \"data\": {\"t\": \"y\"}}"));
+        assertSame(a, root.getCellAt(0));
+        assertEquals(2, a.getParams().styleId);
+        assertEquals(8, a.getPaddingLeft());
+        assertEquals("y", old.cellData.getString(a.getId(), "t"));
+        assertEquals(1, patcher.changedCells.size());
+        assertSame(a, patcher.changedCells.get(0));
+        assertEquals(1, styleChanged.size());
+        assertSame(a, styleChanged.get(0));
+    }
+
+    @Test
+    public void testRootOfOtherTypeIsNotPatched() throws JSONException {
+        final TemplateFactory.Template old = load("{}");
+        final TemplateFactory.Template template = TemplateFactory.load("{\"root\": {\"type\": \"grid\", \"cells\": [{}]}}");
+        final TemplatePatcher patcher = new TemplatePatcher(old.cellData, template.cellData, null);
+        assertFalse(patcher.patch(old.root, template.root));
+    }
+
+    private TemplatePatcher patch(TemplateFactory.Template old, TemplateFactory.Template template) {
+        final TemplatePatcher patcher = new TemplatePatcher(old.cellData, template.cellData, new Filter<Cell>() {
+            @Override
+            public boolean call(Cell cell) {
+                styleChanged.add(cell);
+                return false;
+            }
+        });
+        assertTrue(patcher.patch(old.root, template.root));
+        return patcher;
+    }
+
+    private static TemplateFactory.Template load(String cells) throws JSONException {
+        return TemplateFactory.load("{\"root\": {\"type\": \"linear\", \"orientation\": 1, \"cells\": [" + cells + "]}}");
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.pinwheel.view.celllayout;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Copyright (C), 2018 <br>
+ * <br>
+ * All rights reserved <br>
+ * <br>
+ * Structure walking of template reader, the values are decoded by org.json.
+ *
+ * @author dnwang
+ * @version 2019/01/03,10:00
+ */
+public class TemplateReaderTest {
+
+    @Test
+    public void testEscapes() throws JSONException {
+        final JSONObject doc = new TemplateReader("{\"a\": \"q\\\"b\\\\s\\/t\\n\", \"k\\\"ey\": 1}").readDocument();
+        assertEquals("q\"b\\s/t\n", doc.getString("a"));
+        assertEquals(1, doc.optInt("k\"ey"));
+    }
+
+    @Test
+    public void testUnicodeEscapes() throws JSONException {
+        final JSONObject doc = new TemplateReader("{\"u\": \"\\u4e2d\\u0041\", \"raw\": \"中文\"}").readDocument();
+        assertEquals("中A", doc.getString("u"));
+        assertEquals("中文", doc.getString("raw"));
+    }
+
+    @Test
+    public void testNumbers() throws JSONException {
+        final JSONObject doc = new TemplateReader("{\"i\": 42, \"n\": -7, \"d\": 0.5, \"e1\": 1e3, \"e2\": -2.5E-2, \"e3\": 4e+2}").readDocument();
+        assertEquals(42, doc.optInt("i"));
+        assertEquals(-7, doc.optInt("n"));
+        assertEquals(0.5, doc.optDouble("d", 0), 0);
+        assertEquals(1000, doc.optDouble("e1", 0), 0);
+        assertEquals(-0.025, doc.optDouble("e2", 0), 1e-9);
+        assertEquals(400, doc.optDouble("e3", 0), 0);
+    }
+
+    @Test
+    public void testNestedArraysAndObjects() throws JSONException {
+        final JSONObject doc = new TemplateReader("{\"a\": [1, [2, 3], {\"b\": {\"c\": [true, null, \"x\"]}}], \"o\": {}, \"e\": []}").readDocument();
+        final JSONArray a = doc.optJSONArray("a");
+        assertEquals(3, a.length());
+        assertEquals(1, a.getInt(0));
+        assertEquals(3, ((JSONArray) a.get(1)).getInt(1));
+        final JSONArray c = ((JSONObject) a.get(2)).getJSONObject("b").getJSONArray("c");
+        assertEquals(Boolean.TRUE, c.get(0));
+        assertTrue(JSONObject.NULL.equals(c.opt(1)));
+        assertEquals("x", c.getString(2));
+        assertEquals(0, doc.getJSONObject("o").length());
+        assertEquals(0, doc.optJSONArray("e").length());
+    }
+
+    @Test
+    public void testComments() throws JSONException {
+        final JSONObject doc = new TemplateReader("{# hash\n\"a\": 1, // line\n/* block */ \"b\": 2}").readDocument();
+        assertEquals(1, doc.optInt("a"));
+        assertEquals(2, doc.optInt("b"));
+    }
+
+    @Test
+    public void testDataIsKeptAsSlice() throws JSONException {
+        final String data = "{\"t\": \"}{\\\"]\", \"n\": [1, {\"x\": 2}]}";
+        final JSONObject doc = new TemplateReader("{\"data\": " + data + ", \"$data\": [{\"a\": 1}, 2]}").readDocument();
+        final Object slice = doc.opt("data");
+        assertTrue(slice instanceof CellData.Slice);
+        assertEquals(data, slice.toString());
+        assertEquals("}{\"]", new JSONObject(slice.toString()).getString("t"));
+        final JSONArray refData = doc.optJSONArray("$data");
+        assertTrue(refData.opt(0) instanceof CellData.Slice);
+        assertEquals(2, refData.getInt(1));
+    }
+
+    @Test
+    public void testTruncatedInput() {
+        assertSyntaxError(
+                "",
+                "{\"a\": ",
+                "{\"a\": 1",
+                "{\"a\": [1, 2",
+                "{\"a\": {\"b\": 1}",
+                "{\"a\": \"abc",
+                "{\"data\": {\"t\": [1",
+                "{\"a\": 1 /* comment");
+    }
+
+    @Test
+    public void testSyntaxError() {
+        assertSyntaxError(
+                "[1]",
+                "{\"a\" 1}",
+                "{\"a\": 1 \"b\": 2}",
+                "{\"a\": 1, \"a\": 2}");
+    }
+
+    private static void assertSyntaxError(String... templates) {
+        for (String template : templates) {
+            try {
+                new TemplateReader(template).readDocument();
+                fail("no error: " + template);
+            } catch (JSONException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testStreamRefill() throws JSONException {
+        final int count = 1000; // much larger than the first buffer
+        final StringBuilder builder = new StringBuilder("{\"version\": 1, \"root\": {\"type\": \"linear\", \"cells\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(',');
+            builder.append("{\"height\": ").append(i).append(", \"data\": {\"title\": \"cell \\u0041 ").append(i).append("\"}}");
+        }
+        builder.append("]}}");
+        final List<JSONObject> cells = new ArrayList<>();
+        final JSONObject[] begin = new JSONObject[2];
+        final JSONObject doc = new TemplateReader(new SlowReader(builder.toString(), 7)).readDocument(new TemplateReader.RootListener() {
+            @Override
+            public void onRootBegin(JSONObject document, JSONObject root) {
+                begin[0] = document;
+                begin[1] = root;
+            }
+
+            @Override
+            public void onRootCell(JSONObject args) {
+                cells.add(args);
+            }
+        });
+        assertEquals(1, doc.optInt("version"));
+        assertEquals(1, begin[0].optInt("version"));
+        assertEquals("linear", begin[1].optString("type"));
+        assertEquals(count, cells.size());
+        for (int i = 0; i < count; i++) {
+            final JSONObject args = cells.get(i);
+            assertEquals(i, args.optInt("height"));
+            // slices which were read before the buffer grew are still valid
+            final Object data = args.opt("data");
+            assertTrue(data instanceof CellData.Slice);
+            assertEquals("cell A " + i, new JSONObject(data.toString()).getString("title"));
+        }
+    }
+
+    @Test(expected = JSONException.class)
+    public void testAttributeAfterCellsOfRoot() throws JSONException {
+        new TemplateReader(new StringReader("{\"root\": {\"cells\": [{}], \"type\": \"linear\"}}")).readDocument(new TemplateReader.RootListener() {
+            @Override
+            public void onRootBegin(JSONObject document, JSONObject root) {
+            }
+
+            @Override
+            public void onRootCell(JSONObject args) {
+            }
+        });
+    }
+
+    /**
+     * returns a few chars for every read, so the source is filled many times
+     */
+    private static final class SlowReader extends Reader {
+        private final String content;
+        private final int step;
+        private int pos = 0;
+
+        SlowReader(String content, int step) {
+            this.content = content;
+            this.step = step;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (pos >= content.length()) {
+                return -1;
+            }
+            final int count = Math.min(Math.min(step, length), content.length() - pos);
+            content.getChars(pos, pos + count, buffer, offset);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -3,18 +3,18 @@ package org.pinwheel.demo;
 import android.app.Activity;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import org.json.JSONException;
 import org.pinwheel.agility2.utils.IOUtils;
 import org.pinwheel.view.celllayout.Cell;
+import org.pinwheel.view.celllayout.CellData;
 import org.pinwheel.view.celllayout.CellGroup;
 import org.pinwheel.view.celllayout.CellLayout;
+import org.pinwheel.view.celllayout.CellSource;
 import org.pinwheel.view.celllayout.LinearGroup;
 import org.pinwheel.view.celllayout.StyleAdapter;
 import org.pinwheel.view.celllayout.TemplateFactory;
@@ -34,7 +34,6 @@ public final class MainActivity extends Activity {
     private static final String TAG = "MainActivity";
 
     private CellLayout cellLayout;
-    private SparseArray<Bundle> dataMaps = new SparseArray<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,17 +71,7 @@ public final class MainActivity extends Activity {
 
             @Override
             public void onScrollToEnd(CellGroup group) {
-                final Cell root = cellLayout.getContentCell();
-                if (root instanceof LinearGroup && ((LinearGroup) root).getOrientation() == LinearGroup.VERTICAL) {
-                    try {
-                        final TemplateFactory.Template template = TemplateFactory.load(IOUtils.stream2String(getResources().getAssets().open("sample.json")));
-                        mergeData(template.data); // 数据可有可无
-                        cellLayout.addCell(template.root); // 追加一组模板到最后
-                        cellLayout.requestLayout(); // 应用更改
-                    } catch (JSONException | IOException e) {
-                        e.printStackTrace();
-                    }
-                }
+                // 移动到底部，追加内容由 CellSource 提前加载
             }
         });
         initNavigation();
@@ -109,21 +98,39 @@ public final class MainActivity extends Activity {
 
     private void resetCellLayout(String json) {
         try {
-            final TemplateFactory.Template template = TemplateFactory.load(IOUtils.stream2String(getResources().getAssets().open(json)));
-            dataMaps = template.data;
-            cellLayout.setContentCell(template.root);
-            cellLayout.requestLayout(); // apply
-        } catch (JSONException | IOException e) {
+            cellLayout.setContentTemplate(getResources().getAssets().open(json), new TemplateFactory.OnTemplateStreamListener() { // 边读边显示，每解析完一行就追加
+                @Override
+                public void onStart(TemplateFactory.Template template) {
+                }
+
+                @Override
+                public void onCellLoaded(TemplateFactory.Template template, Cell cell, CellData data) {
+                }
+
+                @Override
+                public void onComplete(TemplateFactory.Template template) {
+                    if (template.root instanceof LinearGroup && ((LinearGroup) template.root).getOrientation() == LinearGroup.VERTICAL) {
+                        // 接近底部时提前加载下一页，超出3屏的内容会被回收，回滚时再重新加载
+                        cellLayout.setCellSource(moreSource, -1, 3 * getResources().getDisplayMetrics().heightPixels);
+                    }
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void mergeData(SparseArray<Bundle> data) {
-        final int size = data.size();
-        for (int i = 0; i < size; i++) {
-            dataMaps.put(data.keyAt(i), data.valueAt(i));
+    private final CellSource moreSource = new CellSource() {
+        @Override
+        public TemplateFactory.Template loadPage(int page) throws Exception {
+            return TemplateFactory.load(IOUtils.stream2String(getResources().getAssets().open("sample.json")));
         }
-    }
+    };
 
     private static final String[] TEMPLATE = new String[]{
             "sample.json",
@@ -135,12 +142,11 @@ public final class MainActivity extends Activity {
     private final StyleAdapter adapter = new StyleAdapter()
             .addStyle(new StyleAdapter.Style(R.layout.item_style_movie) {
                 @Override
-                public void onBind(final Cell cell, StyleAdapter.Holder holder) {
-                    final Bundle args = dataMaps.get(cell.getId());
+                public void onBind(final Cell cell, StyleAdapter.Holder holder, CellData data) {
                     final TextView text = holder.get(R.id.desc);
                     final ImageView image = holder.get(R.id.image);
-                    final String title = null != args ? args.getString("title") : "";
-                    final String posterUrl = null != args ? args.getString("poster") : null;
+                    final String title = data.getString(cell.getId(), "title", "");
+                    final String posterUrl = data.getString(cell.getId(), "poster");
                     text.setText(title);
                     BitmapLoader.INSTANCE.display(image, posterUrl);
                     holder.view.setOnClickListener(new View.OnClickListener() {
@@ -172,9 +178,8 @@ public final class MainActivity extends Activity {
             })
             .addStyle(2, new StyleAdapter.Style(R.layout.item_style_poster) {
                 @Override
-                public void onBind(Cell cell, StyleAdapter.Holder holder) {
-                    final Bundle args = dataMaps.get(cell.getId());
-                    final String posterUrl = null != args ? args.getString("poster") : null;
+                public void onBind(Cell cell, StyleAdapter.Holder holder, CellData data) {
+                    final String posterUrl = data.getString(cell.getId(), "poster");
                     BitmapLoader.INSTANCE.display((ImageView) holder.get(R.id.image), posterUrl);
                 }
 
@@ -187,10 +192,9 @@ public final class MainActivity extends Activity {
             })
             .addStyle(1, new StyleAdapter.Style(R.layout.item_style_title) {
                 @Override
-                public void onBind(Cell cell, StyleAdapter.Holder holder) {
+                public void onBind(Cell cell, StyleAdapter.Holder holder, CellData data) {
                     cell.setNoHolder(true); // 滑动的时候始终展示，不用站位图代替
-                    final Bundle args = dataMaps.get(cell.getId());
-                    final String title = null != args ? args.getString("title") : "";
+                    final String title = data.getString(cell.getId(), "title", "");
                     final TextView text = (TextView) holder.view;
                     text.setText(title);
                 }